@@ -0,0 +1,206 @@
+package br.ufmg.engsoft.reprova.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.Semester;
+
+
+/**
+ * Benchmark fixtures: questions in three sizes.
+ * - small: open question, short statement, a semester with a few grades.
+ * - medium: multiple choice, a 2KB statement, six semesters of a 40 student class.
+ * - large: multiple choice, a 20KB statement, twenty semesters of a 100 student class.
+ *
+ * Questions are generated deterministically, unless the 'REPROVA_BENCH_FIXTURES'
+ * environment variable names a file of real questions, one json per line, as given to the
+ * batch creation or produced by the export. Those are then split in thirds by rendered size.
+ */
+public final class Fixtures {
+  private Fixtures() { }
+
+  /**
+   * The sizes, for the benchmarks' parameters.
+   */
+  public static final String Small = "small";
+  public static final String Medium = "medium";
+  public static final String Large = "large";
+
+  /**
+   * Number of generated questions per size, cycled through by the benchmarks.
+   */
+  public static final int Count = 16;
+
+  /**
+   * Loaded fixtures, by size, or null if generated.
+   */
+  private static Map<String, List<Question>> loaded;
+
+
+
+  /**
+   * Get the questions of the given size.
+   * @throws IllegalArgumentException  if the size is unknown
+   */
+  public static synchronized List<Question> questions(String size) {
+    var file = System.getenv("REPROVA_BENCH_FIXTURES");
+    if (file != null) {
+      if (loaded == null)
+        loaded = load(Path.of(file));
+
+      return loaded.get(check(size));
+    }
+
+    return generate(check(size));
+  }
+
+  /**
+   * Render the questions of the given size to json.
+   */
+  public static List<String> bodies(String size) {
+    var json = Json.getInstance();
+
+    return questions(size)
+      .stream()
+      .map(json::render)
+      .collect(Collectors.toList());
+  }
+
+
+  private static String check(String size) {
+    if (!Small.equals(size) && !Medium.equals(size) && !Large.equals(size))
+      throw new IllegalArgumentException("invalid size: " + size);
+
+    return size;
+  }
+
+
+  /**
+   * Load the questions in the given file, split in thirds by rendered size.
+   */
+  private static Map<String, List<Question>> load(Path file) {
+    var json = Json.getInstance();
+
+    List<Question> questions;
+    try (var lines = Files.lines(file)) {
+      questions = lines
+        .filter(line -> !line.isBlank())
+        .map(line -> json.parse(line, QuestionBuilder.class).build())
+        .sorted(Comparator.comparingInt(question -> json.render(question).length()))
+        .collect(Collectors.toList());
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    if (questions.size() < 3)
+      throw new IllegalArgumentException("fixtures need at least 3 questions: " + file);
+
+    var third = questions.size() / 3;
+
+    return Map.of(
+      Small, questions.subList(0, third),
+      Medium, questions.subList(third, 2 * third),
+      Large, questions.subList(2 * third, questions.size())
+    );
+  }
+
+
+  /**
+   * Generate questions of the given size.
+   */
+  private static List<Question> generate(String size) {
+    var random = new Random(size.hashCode());
+    var questions = new ArrayList<Question>(Count);
+
+    for (var i = 0; i < Count; i++) {
+      switch (size) {
+        case Small:
+          questions.add(question(random, false, 200, 1, 5));
+          break;
+        case Medium:
+          questions.add(question(random, true, 2 * 1024, 6, 40));
+          break;
+        default:
+          questions.add(question(random, true, 20 * 1024, 20, 100));
+      }
+    }
+
+    return questions;
+  }
+
+  /**
+   * Generate a question.
+   * @param multipleChoice  whether the question has options
+   * @param statement       the statement's length
+   * @param semesters       the number of semesters in the record
+   * @param students        the number of grades per semester
+   */
+  private static Question question(
+    Random random,
+    boolean multipleChoice,
+    int statement,
+    int semesters,
+    int students
+  ) {
+    var record = new HashMap<Semester, Map<String, Float>>();
+    for (var s = 0; s < semesters; s++) {
+      var grades = new HashMap<String, Float>();
+      for (var student = 0; student < students; student++)
+        grades.put(
+          "2019" + String.format("%06d", random.nextInt(1000000)),
+          Math.round(random.nextFloat() * 1000) / 10f
+        );
+
+      var reference = s % 2 == 0 ? Semester.Reference.one : Semester.Reference.two;
+      record.put(new Semester(2020 - s / 2, reference), grades);
+    }
+
+    var id = new ObjectId(
+      new Date(1500000000000L + random.nextInt(1 << 30)),
+      random.nextInt(1 << 24)
+    );
+
+    var builder = new QuestionBuilder()
+      .id(id.toHexString())
+      .theme("Software Engineering")
+      .description("Which of the following best describes the design pattern in the listing?")
+      .statement("statement.pdf/data:application/pdf;base64," + base64(random, statement))
+      .record(record)
+      .pvt(random.nextBoolean());
+
+    if (multipleChoice)
+      builder
+        .type("multiple_choice")
+        .optCount("4")
+        .options(List.of("Builder", "Adapter", "Observer", "Visitor"));
+
+    return builder.build();
+  }
+
+  /**
+   * Random base64 text, standing for an attached file.
+   */
+  private static String base64(Random random, int length) {
+    var alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    var text = new StringBuilder(length);
+    for (var i = 0; i < length; i++)
+      text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    return text.toString();
+  }
+}
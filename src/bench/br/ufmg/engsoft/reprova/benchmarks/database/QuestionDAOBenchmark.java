@@ -0,0 +1,71 @@
+package br.ufmg.engsoft.reprova.benchmarks.database;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufmg.engsoft.reprova.benchmarks.Fixtures;
+import br.ufmg.engsoft.reprova.database.QuestionDAO;
+import br.ufmg.engsoft.reprova.database.codecs.QuestionCodec;
+import br.ufmg.engsoft.reprova.model.Question;
+
+
+/**
+ * QuestionDAO.parseDoc on prebuilt documents, as stored by the DAO.
+ * Doesn't need a database, parseDoc is static.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionDAOBenchmark {
+  @Param({ Fixtures.Small, Fixtures.Medium, Fixtures.Large })
+  public String size;
+
+  protected List<Document> documents;
+  protected int next;
+
+
+  @Setup
+  public void setup() {
+    var codec = new QuestionCodec();
+    var documentCodec = new DocumentCodec();
+
+    this.documents = new ArrayList<>();
+    for (var question : Fixtures.questions(size)) {
+      var buffer = new BasicOutputBuffer();
+      codec.encode(new BsonBinaryWriter(buffer), question, EncoderContext.builder().build());
+
+      var reader = new BsonBinaryReader(ByteBuffer.wrap(buffer.toByteArray()));
+      this.documents.add(documentCodec.decode(reader, DecoderContext.builder().build()));
+    }
+  }
+
+
+  @Benchmark
+  public Question parseDoc() {
+    return QuestionDAO.parseDoc(documents.get(next++ % documents.size()));
+  }
+}
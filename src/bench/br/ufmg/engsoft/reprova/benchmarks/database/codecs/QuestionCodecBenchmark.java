@@ -0,0 +1,135 @@
+package br.ufmg.engsoft.reprova.benchmarks.database.codecs;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufmg.engsoft.reprova.database.codecs.QuestionCodec;
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.Semester;
+
+
+/**
+ * Compares QuestionCodec with the previous Document -> Json -> Gson path, both reading from
+ * and writing to raw Bson, as the driver does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionCodecBenchmark {
+  protected final QuestionCodec codec = new QuestionCodec();
+  protected final DocumentCodec documentCodec = new DocumentCodec();
+  protected final Json json = new Json();
+
+  protected Question question;
+  protected byte[] bson;
+
+
+  @Setup
+  public void setup() {
+    var record = new HashMap<Semester, Map<String, Float>>();
+    for (var year = 2010; year < 2020; year++)
+      for (var ref : Semester.Reference.values()) {
+        var grades = new HashMap<String, Float>();
+        for (var c = 'a'; c < 'f'; c++)
+          grades.put("t" + c, 40f + c % 50);
+        record.put(new Semester(year, ref), grades);
+      }
+
+    this.question = new QuestionBuilder()
+      .id(new ObjectId().toHexString())
+      .theme("Software Engineering")
+      .description("Which of the following is a creational design pattern?")
+      .statement("statement.docx/data:application/octet-stream;base64," + "A".repeat(2048))
+      .record(record)
+      .pvt(false)
+      .type("multiple_choice")
+      .optCount("4")
+      .options(List.of("Builder", "Adapter", "Observer", "Visitor"))
+      .build();
+
+    var buffer = new BasicOutputBuffer();
+    codec.encode(new BsonBinaryWriter(buffer), question, EncoderContext.builder().build());
+    this.bson = buffer.toByteArray();
+  }
+
+
+  @Benchmark
+  public Question decodeCodec() {
+    var reader = new BsonBinaryReader(ByteBuffer.wrap(bson));
+    return codec.decode(reader, DecoderContext.builder().build());
+  }
+
+  @Benchmark
+  public Question decodeDocumentJson() {
+    var reader = new BsonBinaryReader(ByteBuffer.wrap(bson));
+    var document = documentCodec.decode(reader, DecoderContext.builder().build());
+    return json
+      .parse(document.toJson(), QuestionBuilder.class)
+      .build();
+  }
+
+
+  @Benchmark
+  public byte[] encodeCodec() {
+    var buffer = new BasicOutputBuffer();
+    codec.encode(new BsonBinaryWriter(buffer), question, EncoderContext.builder().build());
+    return buffer.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] encodeDocument() {
+    Map<String, Object> record = question.record
+      .entrySet()
+      .stream()
+      .collect(
+        Collectors.toMap(
+          e -> e.getKey().toString(),
+          Map.Entry::getValue
+        )
+      );
+
+    var multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+
+    var document = new Document()
+      .append("theme", question.theme)
+      .append("description", question.description)
+      .append("statement", question.statement)
+      .append("record", new Document(record))
+      .append("pvt", question.pvt)
+      .append("optCount", multipleChoiceQuestion.optCount)
+      .append("options", multipleChoiceQuestion.options);
+
+    var buffer = new BasicOutputBuffer();
+    documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+    return buffer.toByteArray();
+  }
+}
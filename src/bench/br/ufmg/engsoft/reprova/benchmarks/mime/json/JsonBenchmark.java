@@ -0,0 +1,79 @@
+package br.ufmg.engsoft.reprova.benchmarks.mime.json;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufmg.engsoft.reprova.benchmarks.Fixtures;
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+
+
+/**
+ * Json parsing and rendering of questions, as done for request and response bodies.
+ * Each invocation takes the next fixture, so that branch prediction doesn't settle on a
+ * single question.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+  @Param({ Fixtures.Small, Fixtures.Medium, Fixtures.Large })
+  public String size;
+
+  protected final Json json = Json.getInstance();
+
+  protected List<Question> questions;
+  protected List<String> bodies;
+  protected int next;
+
+
+  @Setup
+  public void setup() {
+    this.questions = Fixtures.questions(size);
+    this.bodies = Fixtures.bodies(size);
+  }
+
+
+  /**
+   * Parse a body to a builder, without building.
+   */
+  @Benchmark
+  public QuestionBuilder parse() {
+    var body = bodies.get(next++ % bodies.size());
+    return json.parse(body, QuestionBuilder.class);
+  }
+
+  /**
+   * Parse a body and build the question, as the create and update handlers do.
+   */
+  @Benchmark
+  public Question parseBuild() {
+    var body = bodies.get(next++ % bodies.size());
+    return json.parse(body, QuestionBuilder.class).build();
+  }
+
+  /**
+   * Render a question, as the get by id route does.
+   */
+  @Benchmark
+  public String render() {
+    var question = questions.get(next++ % questions.size());
+    return json.render(question);
+  }
+}
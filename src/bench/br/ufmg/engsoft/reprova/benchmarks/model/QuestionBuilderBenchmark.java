@@ -0,0 +1,56 @@
+package br.ufmg.engsoft.reprova.benchmarks.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufmg.engsoft.reprova.benchmarks.Fixtures;
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+
+
+/**
+ * QuestionBuilder.build alone: validation and copying of parsed questions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionBuilderBenchmark {
+  @Param({ Fixtures.Small, Fixtures.Medium, Fixtures.Large })
+  public String size;
+
+  protected List<QuestionBuilder> builders;
+  protected int next;
+
+
+  @Setup
+  public void setup() {
+    var json = Json.getInstance();
+
+    this.builders = new ArrayList<>();
+    for (var body : Fixtures.bodies(size))
+      this.builders.add(json.parse(body, QuestionBuilder.class));
+  }
+
+
+  @Benchmark
+  public Question build() {
+    return builders.get(next++ % builders.size()).build();
+  }
+}
@@ -0,0 +1,51 @@
+package br.ufmg.engsoft.reprova.benchmarks.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.Semester;
+
+
+/**
+ * Semester deserialization, done for every entry of a question's record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemesterBenchmark {
+  protected final Json json = Json.getInstance();
+
+  protected final String[] semesters = { "2019/1", "2019/2", "2020/1", "2020/2" };
+  protected final String[] values = { "\"2019/1\"", "\"2019/2\"", "\"2020/1\"", "\"2020/2\"" };
+  protected int next;
+
+
+  /**
+   * Parse a record key.
+   */
+  @Benchmark
+  public Semester parse() {
+    return Semester.parse(semesters[next++ & 3]);
+  }
+
+  /**
+   * Parse a semester json value, through Gson.
+   */
+  @Benchmark
+  public Semester parseJson() {
+    return json.parse(values[next++ & 3], Semester.class);
+  }
+}
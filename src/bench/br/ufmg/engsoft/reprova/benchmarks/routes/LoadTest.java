@@ -0,0 +1,599 @@
+package br.ufmg.engsoft.reprova.benchmarks.routes;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import spark.Spark;
+
+import br.ufmg.engsoft.reprova.routes.Setup;
+
+
+/**
+ * HTTP load test.
+ * Workers send a mix of requests for the given duration, after a warmup, and the test
+ * reports throughput, latency percentiles and error rates, overall and per route. Running
+ * the same test against each release, or each server mode, catches throughput regressions:
+ *
+ *   LoadTest --postman Reprova.postman_collection.json --label pool --out target/load.jsonl
+ *
+ * Requests come from a Postman collection, from a mix file, or from plain urls. A mix file
+ * has a json request per line, with name, method, path, optional body and weight:
+ *
+ *   {"name":"list","method":"GET","path":"/api/questions","weight":8}
+ *   {"name":"create","method":"POST","path":"/api/questions?token={{token}}","body":{...}}
+ *
+ * Postman variables ({{server}}, {{token}}...) are replaced by the collection's values or
+ * by --var, and {{$random...}} by a random word on each request.
+ *
+ * By default, workers send requests back to back (closed loop). With --rate, requests are
+ * sent on a fixed schedule instead, and latency counts from the scheduled time, so that a
+ * stalled server isn't hidden by workers waiting on it.
+ *
+ * Options:
+ * --url          target url, may be repeated (default list route)
+ * --postman      Postman collection to replay
+ * --mix          mix file to replay
+ * --server       base url for --mix and Postman's {{server}} (default localhost on PORT)
+ * --var          variable as key=value, may be repeated
+ * --route        only requests whose name matches the given regex
+ * --concurrency  number of workers (default 64)
+ * --rate         total requests per second, 0 for closed loop (default 0)
+ * --duration     measured seconds (default 30)
+ * --warmup       warmup seconds (default 5)
+ * --embedded     start the application in process first, true or false (default false)
+ * --label        label for the results (default "run")
+ * --out          file to append the results to, as a json line
+ */
+public class LoadTest {
+  /**
+   * Postman variable references.
+   */
+  protected static final Pattern Variable = Pattern.compile("\\{\\{([^}]+)\\}\\}");
+
+  /**
+   * Words for Postman's random variables.
+   */
+  protected static final String[] Words = {
+    "abstract", "adapter", "builder", "coupling", "cohesion", "facade", "iterator",
+    "observer", "proxy", "refactoring", "singleton", "strategy", "testing", "visitor"
+  };
+
+  /**
+   * Test parameters.
+   */
+  protected List<URI> urls = new ArrayList<>();
+  protected Path postman;
+  protected Path mix;
+  protected String server;
+  protected Map<String, String> variables = new HashMap<>();
+  protected Pattern route;
+  protected int concurrency = 64;
+  protected double rate = 0;
+  protected int duration = 30;
+  protected int warmup = 5;
+  protected boolean embedded = false;
+  protected String label = "run";
+  protected Path out;
+
+  /**
+   * The requests to send, repeated by weight.
+   */
+  protected List<Target> targets = new ArrayList<>();
+
+  /**
+   * The distinct route names, in order of appearance.
+   */
+  protected List<String> routes = new ArrayList<>();
+
+  /**
+   * Shared client. Its connection pool keeps connections alive between requests.
+   */
+  protected final HttpClient client = HttpClient
+    .newBuilder()
+    .connectTimeout(Duration.ofSeconds(10))
+    .build();
+
+
+
+  /**
+   * A request to send.
+   */
+  protected static class Target {
+    int route;
+    String method;
+    String uri;
+    String body;
+  }
+
+  /**
+   * Latencies of a route, or errors.
+   */
+  protected static class Samples {
+    long[] latencies = new long[1 << 12];
+    int count = 0;
+    long errors = 0;
+
+    void add(long latency) {
+      if (count == latencies.length)
+        latencies = Arrays.copyOf(latencies, count * 2);
+      latencies[count++] = latency;
+    }
+  }
+
+
+  public static void main(String[] args) throws Exception {
+    var test = new LoadTest();
+    test.parse(args);
+    test.run();
+
+    if (test.embedded) {
+      Spark.stop();
+      System.exit(0); // the database driver's threads keep running.
+    }
+  }
+
+
+  /**
+   * Parse the command line options.
+   * @throws IllegalArgumentException  if an option is unknown or lacks a value
+   */
+  protected void parse(String[] args) throws IOException {
+    for (var i = 0; i < args.length; i++) {
+      if (i + 1 == args.length)
+        throw new IllegalArgumentException("missing value for " + args[i]);
+
+      var option = args[i];
+      var value = args[++i];
+
+      switch (option) {
+        case "--url":
+          this.urls.add(URI.create(value));
+          break;
+        case "--postman":
+          this.postman = Path.of(value);
+          break;
+        case "--mix":
+          this.mix = Path.of(value);
+          break;
+        case "--server":
+          this.server = value;
+          break;
+        case "--var":
+          var separator = value.indexOf('=');
+          if (separator < 0)
+            throw new IllegalArgumentException("invalid variable: " + value);
+          this.variables.put(value.substring(0, separator), value.substring(separator + 1));
+          break;
+        case "--route":
+          this.route = Pattern.compile(value);
+          break;
+        case "--concurrency":
+          this.concurrency = Integer.parseInt(value);
+          break;
+        case "--rate":
+          this.rate = Double.parseDouble(value);
+          break;
+        case "--duration":
+          this.duration = Integer.parseInt(value);
+          break;
+        case "--warmup":
+          this.warmup = Integer.parseInt(value);
+          break;
+        case "--embedded":
+          this.embedded = Boolean.parseBoolean(value);
+          break;
+        case "--label":
+          this.label = value;
+          break;
+        case "--out":
+          this.out = Path.of(value);
+          break;
+        default:
+          throw new IllegalArgumentException("unknown option: " + option);
+      }
+    }
+
+    if (this.server == null)
+      this.server = "http://localhost:" + System.getenv().getOrDefault("PORT", "8080");
+
+    for (var url : this.urls)
+      this.add(url.getPath(), "GET", url.toString(), null, 1);
+
+    if (this.postman != null)
+      this.loadPostman(this.postman);
+
+    if (this.mix != null)
+      this.loadMix(this.mix);
+
+    if (this.urls.isEmpty() && this.postman == null && this.mix == null)
+      this.add("/api/questions", "GET", this.server + "/api/questions", null, 1);
+
+    if (this.targets.isEmpty())
+      throw new IllegalArgumentException("no requests to send");
+
+    Collections.shuffle(this.targets, new Random(0)); // interleave the mix, reproducibly.
+  }
+
+
+  /**
+   * Add a request, unless filtered out by --route.
+   */
+  protected void add(String name, String method, String uri, String body, int weight) {
+    if (this.route != null && !this.route.matcher(name).find())
+      return;
+
+    var index = this.routes.indexOf(name);
+    if (index < 0) {
+      index = this.routes.size();
+      this.routes.add(name);
+    }
+
+    var target = new Target();
+    target.route = index;
+    target.method = method;
+    target.uri = uri;
+    target.body = body;
+
+    for (var i = 0; i < weight; i++)
+      this.targets.add(target);
+  }
+
+
+  /**
+   * Load the requests of a Postman collection, including those in folders.
+   * The collection's variables are used unless given with --var.
+   */
+  protected void loadPostman(Path file) throws IOException {
+    var collection = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+
+    if (collection.has("variable"))
+      for (var element : collection.getAsJsonArray("variable")) {
+        var variable = element.getAsJsonObject();
+        if (variable.has("key"))
+          this.variables.putIfAbsent(
+            variable.get("key").getAsString(),
+            variable.get("value").getAsString()
+          );
+      }
+
+    this.variables.put("server", this.server);
+    this.loadPostmanItems(collection);
+  }
+
+  protected void loadPostmanItems(JsonObject folder) {
+    for (var element : folder.getAsJsonArray("item")) {
+      var item = element.getAsJsonObject();
+
+      if (item.has("item")) {
+        this.loadPostmanItems(item);
+        continue;
+      }
+
+      var request = item.getAsJsonObject("request");
+
+      var url = request.get("url");
+      var uri = this.resolve(
+        url.isJsonObject() ? url.getAsJsonObject().get("raw").getAsString() : url.getAsString()
+      );
+      if (!uri.contains("://"))
+        uri = "http://" + uri;
+
+      String body = null;
+      if (request.has("body") && request.getAsJsonObject("body").has("raw"))
+        body = this.resolve(request.getAsJsonObject("body").get("raw").getAsString());
+
+      this.add(
+        item.get("name").getAsString(),
+        request.get("method").getAsString(),
+        uri,
+        body,
+        1
+      );
+    }
+  }
+
+
+  /**
+   * Load the requests of a mix file, a json request per line.
+   */
+  protected void loadMix(Path file) throws IOException {
+    for (var line : Files.readAllLines(file)) {
+      if (line.isBlank())
+        continue;
+
+      var request = JsonParser.parseString(line).getAsJsonObject();
+
+      var method = request.has("method") ? request.get("method").getAsString() : "GET";
+      var path = request.get("path").getAsString();
+      var name = request.has("name") ? request.get("name").getAsString() : method + " " + path;
+      var weight = request.has("weight") ? request.get("weight").getAsInt() : 1;
+
+      String body = null;
+      if (request.has("body")) {
+        JsonElement element = request.get("body");
+        body = element.isJsonPrimitive() ? element.getAsString() : element.toString();
+      }
+
+      this.add(
+        name,
+        method,
+        this.resolve(this.server + path),
+        body == null ? null : this.resolve(body),
+        weight
+      );
+    }
+  }
+
+
+  /**
+   * Replace the known variables in the given text.
+   * Random variables are kept, to be replaced on each request.
+   */
+  protected String resolve(String text) {
+    var matcher = Variable.matcher(text);
+    var resolved = new StringBuilder();
+
+    while (matcher.find()) {
+      var name = matcher.group(1);
+      var value = this.variables.get(name);
+      matcher.appendReplacement(
+        resolved,
+        Matcher.quoteReplacement(value != null ? value : matcher.group())
+      );
+    }
+    matcher.appendTail(resolved);
+
+    return resolved.toString();
+  }
+
+  /**
+   * Replace random variables in the given text, if any.
+   */
+  protected static String randomize(String text, Random random) {
+    if (text == null || !text.contains("{{$"))
+      return text;
+
+    var matcher = Variable.matcher(text);
+    var randomized = new StringBuilder();
+
+    while (matcher.find())
+      matcher.appendReplacement(
+        randomized,
+        matcher.group(1).startsWith("$") ? Words[random.nextInt(Words.length)] : "$0"
+      );
+    matcher.appendTail(randomized);
+
+    return randomized.toString();
+  }
+
+
+  /**
+   * Run the warmup and the measurement, and report.
+   */
+  protected void run() throws InterruptedException, ExecutionException, IOException {
+    if (this.embedded) {
+      System.out.println("Starting the application.");
+      Setup.routes();
+      Spark.awaitInitialization();
+    }
+
+    System.out.println(
+      "Warming up " + this.warmup + "s, " + this.concurrency + " workers"
+        + (this.rate > 0 ? ", " + this.rate + " req/s" : "") + ": " + this.routes
+    );
+    this.load(this.warmup);
+
+    System.out.println("Measuring " + this.duration + "s.");
+    var start = System.nanoTime();
+    var samples = this.load(this.duration);
+    var elapsed = (System.nanoTime() - start) / 1e9;
+
+    var result = new LinkedHashMap<String, Object>();
+    result.put("label", this.label);
+    result.put("concurrency", this.concurrency);
+    result.put("rate", this.rate);
+    result.putAll(this.report("total", merge(samples), elapsed));
+
+    var routes = new LinkedHashMap<String, Object>();
+    for (var route = 0; route < this.routes.size(); route++) {
+      var merged = new Samples[samples.size()];
+      for (var worker = 0; worker < merged.length; worker++)
+        merged[worker] = samples.get(worker)[route];
+
+      routes.put(
+        this.routes.get(route),
+        this.report(this.routes.get(route), merge(List.<Samples[]>of(merged)), elapsed)
+      );
+    }
+    result.put("routes", routes);
+
+    if (this.out != null)
+      Files.writeString(
+        this.out,
+        new Gson().toJson(result) + "\n",
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND
+      );
+  }
+
+
+  /**
+   * Merge the samples of all workers and routes.
+   */
+  protected static Samples merge(List<Samples[]> samples) {
+    var merged = new Samples();
+
+    for (var worker : samples)
+      for (var route : worker) {
+        for (var i = 0; i < route.count; i++)
+          merged.add(route.latencies[i]);
+        merged.errors += route.errors;
+      }
+
+    Arrays.sort(merged.latencies, 0, merged.count);
+    return merged;
+  }
+
+  /**
+   * Print and return the statistics of the given sorted samples.
+   */
+  protected Map<String, Object> report(String name, Samples samples, double elapsed) {
+    var latencies = Arrays.copyOf(samples.latencies, samples.count);
+
+    var report = new LinkedHashMap<String, Object>();
+    report.put("requests", samples.count);
+    report.put("errors", samples.errors);
+    report.put("errorRate", samples.count == 0 ? 0 : (double) samples.errors / samples.count);
+    report.put("throughput", samples.count / elapsed);
+    report.put("p50", percentile(latencies, 0.50));
+    report.put("p95", percentile(latencies, 0.95));
+    report.put("p99", percentile(latencies, 0.99));
+    report.put("max", percentile(latencies, 1.00));
+
+    System.out.println(
+      String.format(
+        Locale.ROOT,
+        "%s %s: %.1f req/s, p50 %.3fms, p95 %.3fms, p99 %.3fms, max %.3fms, %d errors (%.2f%%)",
+        this.label,
+        name,
+        report.get("throughput"),
+        report.get("p50"),
+        report.get("p95"),
+        report.get("p99"),
+        report.get("max"),
+        samples.errors,
+        100 * (double) report.get("errorRate")
+      )
+    );
+
+    return report;
+  }
+
+
+  /**
+   * Send requests from all workers for the given number of seconds.
+   * @return The samples of each worker, by route.
+   */
+  protected List<Samples[]> load(int seconds) throws InterruptedException, ExecutionException {
+    var start = System.nanoTime();
+    var deadline = start + seconds * 1_000_000_000L;
+    var executor = Executors.newFixedThreadPool(this.concurrency);
+
+    try {
+      var futures = new ArrayList<Future<Samples[]>>();
+      for (var worker = 0; worker < this.concurrency; worker++) {
+        var first = worker;
+        futures.add(executor.submit(() -> this.work(first, start, deadline)));
+      }
+
+      var samples = new ArrayList<Samples[]>();
+      for (var future : futures)
+        samples.add(future.get());
+
+      return samples;
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Send requests until the deadline, back to back or on schedule.
+   * Responses other than 2xx and 304, and failed requests, count as errors.
+   */
+  protected Samples[] work(int first, long start, long deadline) {
+    var samples = new Samples[this.routes.size()];
+    for (var i = 0; i < samples.length; i++)
+      samples[i] = new Samples();
+
+    var random = new Random(first);
+    var interval = this.rate > 0 ? (long) (1e9 * this.concurrency / this.rate) : 0;
+    var scheduled = start + (interval * first) / this.concurrency; // spread the workers.
+    var next = first;
+
+    while (true) {
+      if (interval > 0) {
+        var wait = scheduled - System.nanoTime();
+        if (wait > 0)
+          LockSupport.parkNanos(wait);
+      }
+
+      var now = System.nanoTime();
+      if (now >= deadline || Thread.currentThread().isInterrupted())
+        break;
+
+      var target = this.targets.get(next++ % this.targets.size());
+      var sample = samples[target.route];
+
+      var body = randomize(target.body, random);
+      var request = HttpRequest
+        .newBuilder(URI.create(randomize(target.uri, random)))
+        .method(
+          target.method,
+          body == null
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(body)
+        )
+        .build();
+
+      var begin = interval > 0 ? scheduled : now;
+      try {
+        var response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+        var status = response.statusCode();
+        if (status / 100 != 2 && status != 304)
+          sample.errors++;
+      }
+      catch (IOException e) {
+        sample.errors++;
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      sample.add(System.nanoTime() - begin);
+
+      scheduled += interval;
+    }
+
+    return samples;
+  }
+
+
+  /**
+   * The given percentile of the sorted latencies, in milliseconds.
+   */
+  protected static double percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0)
+      return 0;
+
+    var index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(index, 0)] / 1e6;
+  }
+}
@@ -0,0 +1,178 @@
+package br.ufmg.engsoft.reprova.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Immutable snapshot of the application's settings.
+ * Settings come from the environment and, optionally, from a properties file, with the
+ * same names as the environment variables. The file's settings take precedence.
+ * The file is watched by a ConfigWatcher, and each change replaces the current snapshot
+ * at once. The settings read on each request, such as the enabled question types, take
+ * effect right away; the others are read on startup only.
+ */
+public class Config {
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(Config.class);
+
+  /**
+   * The settings file, from 'REPROVA_CONFIG' environment variable. Defaults to none.
+   */
+  protected static final String configFile = System.getenv("REPROVA_CONFIG");
+
+  /**
+   * The current snapshot.
+   */
+  private static volatile Config instance = load();
+
+
+  /**
+   * Whether multiple choice questions are enabled, from 'MULTIPLE_CHOICE'.
+   * Enabled unless 'false'.
+   */
+  public final boolean multipleChoice;
+
+  /**
+   * Whether open questions are enabled, from 'OPEN'. Enabled unless 'false'.
+   */
+  public final boolean open;
+
+  /**
+   * The number of options of multiple choice questions, from 'OPTIONS', or null if unset.
+   */
+  public final Integer options;
+
+  /**
+   * All the settings, by name.
+   */
+  protected final Map<String, String> values;
+
+
+
+  /**
+   * Build a snapshot of the given settings.
+   * @throws IllegalArgumentException  if any parameter is null, or a setting is invalid
+   */
+  public Config(Map<String, String> values) {
+    if (values == null)
+      throw new IllegalArgumentException("values mustn't be null");
+
+    this.values = Map.copyOf(values);
+
+    this.multipleChoice = !"false".equals(this.values.get("MULTIPLE_CHOICE"));
+    this.open = !"false".equals(this.values.get("OPEN"));
+
+    var options = this.values.get("OPTIONS");
+    try {
+      this.options = options == null || options.isBlank() ? null : Integer.valueOf(options.trim());
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid OPTIONS: " + options);
+    }
+  }
+
+
+  /**
+   * Returns the current snapshot.
+   * Read it once per use, so that related settings come from the same snapshot.
+   */
+  public static Config getInstance() {
+    return instance;
+  }
+
+  /**
+   * The settings file, or null if none.
+   */
+  public static Path file() {
+    return configFile == null ? null : Path.of(configFile);
+  }
+
+
+  /**
+   * Load a snapshot from the given environment and settings file.
+   * @param env   the environment variables
+   * @param file  the properties file, or null for none
+   * @throws IllegalArgumentException  if env is null, or a setting is invalid
+   * @throws IOException  if the file couldn't be read
+   */
+  public static Config load(Map<String, String> env, Path file) throws IOException {
+    if (env == null)
+      throw new IllegalArgumentException("env mustn't be null");
+
+    var values = new HashMap<>(env);
+
+    if (file != null) {
+      var properties = new Properties();
+      try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        properties.load(reader);
+      }
+
+      for (var name : properties.stringPropertyNames())
+        values.put(name, properties.getProperty(name));
+    }
+
+    return new Config(values);
+  }
+
+  /**
+   * Load the first snapshot, from the process' environment and settings file.
+   * @throws UncheckedIOException  if the file couldn't be read
+   */
+  protected static Config load() {
+    try {
+      var config = load(System.getenv(), file());
+      if (configFile != null)
+        logger.info("Loaded settings from " + configFile);
+      return config;
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reload the current snapshot from the process' environment and settings file.
+   * If the file can't be read or is invalid, the current snapshot is kept.
+   * @return Whether the snapshot was replaced.
+   */
+  public static boolean reload() {
+    try {
+      instance = load(System.getenv(), file());
+      logger.info("Reloaded settings from " + configFile);
+      return true;
+    }
+    catch (IOException | RuntimeException e) {
+      logger.error("Invalid settings file, keeping the current settings: " + configFile, e);
+      return false;
+    }
+  }
+
+
+  /**
+   * Get a setting.
+   * @return The value, or null if unset.
+   */
+  public String get(String name) {
+    return this.values.get(name);
+  }
+
+  /**
+   * Get a setting, or the given default if unset.
+   */
+  public String get(String name, String defaultValue) {
+    return Objects.requireNonNullElse(this.values.get(name), defaultValue);
+  }
+}
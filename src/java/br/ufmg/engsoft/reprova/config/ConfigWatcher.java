@@ -0,0 +1,112 @@
+package br.ufmg.engsoft.reprova.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Watches a settings file, calling back when it changes.
+ * Changes are noticed through the file system's watch service, on the file's directory, so
+ * editors that replace the file instead of writing to it are noticed too.
+ */
+public class ConfigWatcher implements AutoCloseable {
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(ConfigWatcher.class);
+
+  /**
+   * Time in milliseconds to wait for a change to settle, so that a file being written is
+   * read once, and whole.
+   */
+  protected static final long Settle = 100;
+
+  protected final Path file;
+
+  protected final Runnable onChange;
+
+  protected final Thread watcher;
+
+
+
+  /**
+   * Start watching the given file.
+   * @param file      the file
+   * @param onChange  called, on the watcher thread, after each change
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public ConfigWatcher(Path file, Runnable onChange) {
+    if (file == null)
+      throw new IllegalArgumentException("file mustn't be null");
+
+    if (onChange == null)
+      throw new IllegalArgumentException("onChange mustn't be null");
+
+    this.file = file.toAbsolutePath();
+    this.onChange = onChange;
+
+    this.watcher = new Thread(this::watch, "config-watcher");
+    this.watcher.setDaemon(true);
+    this.watcher.start();
+  }
+
+
+  /**
+   * The watcher thread's loop.
+   */
+  protected void watch() {
+    var name = this.file.getFileName();
+
+    try (var service = this.file.getFileSystem().newWatchService()) {
+      this.file.getParent().register(
+        service,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY
+      );
+
+      logger.info("Watching " + this.file);
+
+      while (true) {
+        var key = service.take();
+        Thread.sleep(Settle);
+
+        var changed = false;
+        for (var event : key.pollEvents())
+          changed |= name.equals(event.context());
+
+        if (changed) {
+          try {
+            this.onChange.run();
+          }
+          catch (RuntimeException e) {
+            logger.error("Failed to apply change to " + this.file, e);
+          }
+        }
+
+        if (!key.reset()) {
+          logger.error("Stopped watching " + this.file + ": directory is gone");
+          return;
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      return;
+    }
+    catch (IOException e) {
+      logger.error("Failed to watch " + this.file, e);
+    }
+  }
+
+
+  /**
+   * Stop watching.
+   */
+  @Override
+  public void close() {
+    this.watcher.interrupt();
+  }
+}
@@ -0,0 +1,197 @@
+package br.ufmg.engsoft.reprova.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.MongoCollection;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Projections.exclude;
+import static com.mongodb.client.model.Projections.fields;
+import static com.mongodb.client.model.Sorts.ascending;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.logging.LogSampler;
+
+
+/**
+ * Asynchronous DAO for Question class on mongodb, for the read endpoints.
+ * Same reads as QuestionDAO, through the asynchronous driver: nothing blocks, and results
+ * are delivered by futures completed in the driver's threads, so independent queries may
+ * run at once. Shares QuestionDAO's cache and data version, so writes go through it.
+ * The callback based async driver is deprecated in favor of the reactive streams one,
+ * which isn't a dependency yet: its warnings are suppressed until reads move to it.
+ */
+@SuppressWarnings("deprecation")
+public final class AsyncQuestionDAO {
+  /**
+   * Singleton instance.
+   */
+  private static AsyncQuestionDAO instance;
+
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(AsyncQuestionDAO.class);
+
+  /**
+   * Sampler for the per question messages.
+   */
+  protected static final LogSampler missingLog =
+    new LogSampler(logger, Level.INFO, "No such question");
+
+  /**
+   * The cache for get, by id, shared with QuestionDAO.
+   */
+  protected final Cache<String, Question> cache;
+
+  /**
+   * The version of the collection's data, shared with QuestionDAO.
+   */
+  protected final AtomicLong version;
+
+  /**
+   * Questions collection.
+   */
+  protected final MongoCollection<Question> collection;
+
+
+
+  /**
+   * Instantiate sharing the given DAO's cache and data version.
+   */
+  private AsyncQuestionDAO(QuestionDAO dao) {
+    this(
+      Mongo.getInstance().getAsyncCollection("questions", Question.class, QuestionDAO.registry),
+      dao.cache,
+      dao.version
+    );
+  }
+
+  /**
+   * Basic constructor.
+   * Prefer the application's instance, from getInstance.
+   * @param collection  the questions collection
+   * @param cache       the cache for get, by id
+   * @param version     the version of the collection's data
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public AsyncQuestionDAO(
+    MongoCollection<Question> collection,
+    Cache<String, Question> cache,
+    AtomicLong version
+  ) {
+    if (collection == null)
+      throw new IllegalArgumentException("collection mustn't be null");
+    if (cache == null)
+      throw new IllegalArgumentException("cache mustn't be null");
+    if (version == null)
+      throw new IllegalArgumentException("version mustn't be null");
+
+    this.collection = collection;
+    this.cache = cache;
+    this.version = version;
+  }
+
+  /**
+   * Returns the application's AsyncQuestionDAO instance.
+   */
+  public static synchronized AsyncQuestionDAO getInstance() {
+    if(instance == null)
+      instance = new AsyncQuestionDAO(QuestionDAO.getInstance());
+    return instance;
+  }
+
+
+  /**
+   * Run the given driver operation, completing the future with its result.
+   */
+  protected static <T> CompletableFuture<T> future(Consumer<SingleResultCallback<T>> operation) {
+    var future = new CompletableFuture<T>();
+
+    operation.accept((result, error) -> {
+      if (error != null)
+        future.completeExceptionally(error);
+      else
+        future.complete(result);
+    });
+
+    return future;
+  }
+
+
+  /**
+   * The current version of the collection's data.
+   * @see QuestionDAO#version()
+   */
+  public long version() {
+    return this.version.get();
+  }
+
+
+  /**
+   * Get the question with the given id.
+   * Cached questions complete immediately. Fetched questions are cached, unless the data
+   * was written to meanwhile.
+   * @param id  the question's id in the database.
+   * @return The question, or null if no such question.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public CompletableFuture<Question> get(String id) {
+    if (id == null)
+      throw new IllegalArgumentException("id mustn't be null");
+
+    var cached = this.cache.getIfPresent(id);
+    if (cached != null)
+      return CompletableFuture.completedFuture(cached);
+
+    var version = this.version();
+
+    return AsyncQuestionDAO.<Question>future(
+      callback -> this.collection
+        .find(eq(new ObjectId(id)))
+        .first(callback)
+    )
+    .thenApply(question -> {
+      if (question == null) {
+        if (missingLog.sample())
+          logger.info("No such question {}", id);
+      }
+      else if (this.version() == version)
+        this.cache.put(id, question);
+
+      return question;
+    });
+  }
+
+
+  /**
+   * List a page of the questions that match the given non-null parameters, in ascending
+   * id order, without the statement.
+   * @see QuestionDAO#list(String, Boolean, String, int)
+   */
+  public CompletableFuture<List<Question>> list(String theme, Boolean pvt, String after, int limit) {
+    if (limit <= 0)
+      throw new IllegalArgumentException("limit must be positive");
+
+    var filter = QuestionDAO.filter(theme, pvt, after);
+
+    return future(
+      callback -> this.collection
+        .find(filter)
+        .projection(fields(exclude("statement")))
+        .sort(ascending("_id"))
+        .limit(limit)
+        .into(new ArrayList<>(limit), callback)
+    );
+  }
+}
@@ -0,0 +1,297 @@
+package br.ufmg.engsoft.reprova.database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.metrics.Histogram;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
+
+
+/**
+ * Repository decorator that groups concurrent adds into a single addAll (an insertMany on
+ * mongodb), committing them together.
+ * Adds are queued, and a writer thread stores them in batches: a batch is written once it
+ * reaches the size limit or its first add has waited for the linger time, and the adds
+ * that arrive while a batch is being written form the next one. Each add returns once its
+ * batch is acknowledged, with its own result. Everything else goes straight to the store.
+ */
+public final class CoalescingQuestionRepository implements QuestionRepository {
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger =
+    LoggerFactory.getLogger(CoalescingQuestionRepository.class);
+
+  /**
+   * Maximum number of adds per batch, from 'REPROVA_COALESCE_SIZE' environment variable.
+   * Defaults to 256.
+   */
+  protected static final int maxBatch = Integer.parseInt(
+    Config.getInstance().get("REPROVA_COALESCE_SIZE", "256")
+  );
+
+  /**
+   * Time in milliseconds the first add of a batch waits for others, from
+   * 'REPROVA_COALESCE_WAIT' environment variable. Defaults to 0: batches only form while
+   * the previous one is written.
+   */
+  protected static final long linger = Long.parseLong(
+    Config.getInstance().get("REPROVA_COALESCE_WAIT", "0")
+  );
+
+  /**
+   * A queued add.
+   */
+  protected static final class Pending {
+    final Question question;
+    final CompletableFuture<WriteResult> result = new CompletableFuture<>();
+
+    Pending(Question question) {
+      this.question = question;
+    }
+  }
+
+  /**
+   * The store.
+   */
+  protected final QuestionRepository repository;
+
+  protected final int batchSize;
+  protected final long lingerNanos;
+
+  /**
+   * Queued adds, and their number.
+   */
+  protected final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+  protected final AtomicInteger queued = new AtomicInteger();
+
+  /**
+   * Size of the written batches.
+   */
+  protected final Histogram batches;
+
+  protected final Thread writer;
+
+
+
+  /**
+   * Decorate the given store with the configured batch size and linger time.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public CoalescingQuestionRepository(QuestionRepository repository, Metrics metrics) {
+    this(repository, metrics, maxBatch, linger);
+  }
+
+  /**
+   * Basic constructor.
+   * @param repository  the store
+   * @param metrics     the registry for the batch sizes
+   * @param batchSize   maximum number of adds per batch, must be positive
+   * @param linger      time in milliseconds the first add of a batch waits for others
+   * @throws IllegalArgumentException  if any parameter is null or out of range
+   */
+  public CoalescingQuestionRepository(
+    QuestionRepository repository,
+    Metrics metrics,
+    int batchSize,
+    long linger
+  ) {
+    if (repository == null)
+      throw new IllegalArgumentException("repository mustn't be null");
+    if (metrics == null)
+      throw new IllegalArgumentException("metrics mustn't be null");
+    if (batchSize <= 0)
+      throw new IllegalArgumentException("batchSize must be positive");
+    if (linger < 0)
+      throw new IllegalArgumentException("linger mustn't be negative");
+
+    this.repository = repository;
+    this.batchSize = batchSize;
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(linger);
+
+    this.batches = metrics.histogram(
+      "reprova_coalesced_batch_size",
+      "Number of adds written together by the coalescing stage.",
+      "",
+      Histogram::sizes
+    );
+
+    this.writer = new Thread(this::write, "coalesced-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+
+    logger.info("Coalescing adds: batches of up to {}, waiting {}ms.", batchSize, linger);
+  }
+
+
+  /**
+   * Adds the given question, in the next batch.
+   * Invalid questions are reported as not added, rather than throwing as some stores do.
+   * @throws IllegalArgumentException  if any parameter is null, or the question has an id
+   */
+  @Override
+  public boolean add(Question question) {
+    if (question == null)
+      throw new IllegalArgumentException("question mustn't be null");
+
+    if (question.id != null)
+      throw new IllegalArgumentException("to update use the put method");
+
+    // Counted before queued, so that the writer never parks while an add is queued.
+    var pending = new Pending(question);
+    var queued = this.queued.incrementAndGet();
+    this.queue.offer(pending);
+
+    if (queued == 1 || queued == this.batchSize)
+      LockSupport.unpark(this.writer);
+
+    try {
+      return pending.result.join().isOk();
+    }
+    catch (CompletionException e) {
+      var cause = e.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw e;
+    }
+  }
+
+
+  /**
+   * Writer thread: wait for adds, let the batch fill up to the linger time, write it.
+   */
+  protected void write() {
+    var batch = new ArrayList<Pending>(this.batchSize);
+    var questions = new ArrayList<Question>(this.batchSize);
+
+    while (true) {
+      if (this.queued.get() == 0) {
+        LockSupport.park(this);
+        continue;
+      }
+
+      var deadline = System.nanoTime() + this.lingerNanos;
+      long remaining;
+      while (
+        this.queued.get() < this.batchSize
+          && (remaining = deadline - System.nanoTime()) > 0
+      )
+        LockSupport.parkNanos(this, remaining);
+
+      Pending pending;
+      while (batch.size() < this.batchSize && (pending = this.queue.poll()) != null) {
+        batch.add(pending);
+        questions.add(pending.question);
+      }
+      if (batch.isEmpty()) { // counted, but not queued yet.
+        Thread.onSpinWait();
+        continue;
+      }
+
+      this.queued.addAndGet(-batch.size());
+
+      this.flush(batch, questions);
+
+      batch.clear();
+      questions.clear();
+    }
+  }
+
+  /**
+   * Store the batch, completing each add with its result, or all with the failure.
+   */
+  protected void flush(List<Pending> batch, List<Question> questions) {
+    this.batches.record(batch.size());
+
+    List<WriteResult> results;
+    try {
+      results = this.repository.addAll(questions);
+    }
+    catch (RuntimeException | Error e) {
+      logger.error("Failed to store a batch of {} questions!", batch.size(), e);
+      for (var pending : batch)
+        pending.result.completeExceptionally(e);
+      return;
+    }
+
+    for (var i = 0; i < batch.size(); i++)
+      batch.get(i).result.complete(results.get(i));
+  }
+
+
+  @Override
+  public Question get(String id) {
+    return this.repository.get(id);
+  }
+
+  @Override
+  public List<Question> getAll(List<String> ids) {
+    return this.repository.getAll(ids);
+  }
+
+  @Override
+  public long version() {
+    return this.repository.version();
+  }
+
+  @Override
+  public Collection<Question> list(String theme, Boolean pvt) {
+    return this.repository.list(theme, pvt);
+  }
+
+  @Override
+  public List<Question> list(String theme, Boolean pvt, String after, int limit) {
+    return this.repository.list(theme, pvt, after, limit);
+  }
+
+  @Override
+  public Stream<Question> stream(String theme, Boolean pvt, String after, int limit) {
+    return this.repository.stream(theme, pvt, after, limit);
+  }
+
+  @Override
+  public Stream<Question> export(int batchSize) {
+    return this.repository.export(batchSize);
+  }
+
+  @Override
+  public List<WriteResult> addAll(List<Question> questions) {
+    return this.repository.addAll(questions);
+  }
+
+  @Override
+  public boolean update(String id, Question question) {
+    return this.repository.update(id, question);
+  }
+
+  @Override
+  public boolean patch(String id, QuestionPatch patch) {
+    return this.repository.patch(id, patch);
+  }
+
+  @Override
+  public boolean remove(String id) {
+    return this.repository.remove(id);
+  }
+
+  @Override
+  public List<WriteResult> removeAll(List<String> ids) {
+    return this.repository.removeAll(ids);
+  }
+}
@@ -0,0 +1,173 @@
+package br.ufmg.engsoft.reprova.database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Keeps the indexes declared for a collection in place.
+ * Compares the declared indexes against the existing ones, logs both, and creates the
+ * missing ones in the background, so that the application doesn't wait on the build.
+ * Indexes are matched by their keys, in order, regardless of name.
+ */
+public class IndexManager {
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(IndexManager.class);
+
+  /**
+   * The managed collection.
+   */
+  protected final MongoCollection<?> collection;
+
+  /**
+   * The declared indexes.
+   */
+  protected final List<IndexModel> declared;
+
+
+
+  /**
+   * Basic constructor.
+   * @param collection  the managed collection, mustn't be null
+   * @param declared    the declared indexes, mustn't be null
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public IndexManager(MongoCollection<?> collection, List<IndexModel> declared) {
+    if (collection == null)
+      throw new IllegalArgumentException("collection mustn't be null");
+
+    if (declared == null)
+      throw new IllegalArgumentException("declared mustn't be null");
+
+    this.collection = collection;
+    this.declared = List.copyOf(declared);
+  }
+
+
+  /**
+   * Describe an index key document, e.g. "theme_1_pvt_1__id_1".
+   * This is the same as mongodb's default index name.
+   */
+  protected static String describe(BsonDocument key) {
+    return key
+      .entrySet()
+      .stream()
+      .map(entry -> entry.getKey() + "_" + describe(entry.getValue()))
+      .collect(Collectors.joining("_"));
+  }
+
+  /**
+   * Describe an index key direction or type.
+   * Numeric directions may be stored as doubles, so they're normalized to integers.
+   */
+  protected static String describe(BsonValue value) {
+    if (value.isNumber())
+      return String.valueOf(value.asNumber().intValue());
+
+    if (value.isString())
+      return value.asString().getValue();
+
+    return value.toString();
+  }
+
+
+  /**
+   * Get the existing indexes, by their key description.
+   */
+  public Map<String, String> existing() {
+    var indexes = new LinkedHashMap<String, String>();
+
+    for (var index : this.collection.listIndexes(Document.class)) {
+      var key = index
+        .get("key", Document.class)
+        .toBsonDocument(BsonDocument.class, this.collection.getCodecRegistry());
+
+      indexes.put(describe(key), index.getString("name"));
+    }
+
+    return indexes;
+  }
+
+  /**
+   * Get the declared indexes that don't exist yet.
+   */
+  public List<IndexModel> missing() {
+    var existing = this.existing();
+    var missing = new ArrayList<IndexModel>();
+
+    for (var index : this.declared) {
+      if (!existing.containsKey(describe(index)))
+        missing.add(index);
+    }
+
+    return missing;
+  }
+
+  /**
+   * Describe the key of a declared index.
+   */
+  protected String describe(IndexModel index) {
+    return describe(
+      index
+        .getKeys()
+        .toBsonDocument(BsonDocument.class, this.collection.getCodecRegistry())
+    );
+  }
+
+
+  /**
+   * Log the existing and declared indexes, and create the missing ones in the background.
+   * Failures are logged, as the application still works without the indexes, only slower.
+   */
+  public void ensure() {
+    try {
+      var existing = this.existing();
+
+      logger.info(
+        "Indexes on '" + this.collection.getNamespace().getCollectionName() + "': "
+          + "existing " + existing.keySet()
+          + ", declared " + this.declared.stream().map(this::describe).collect(Collectors.toList())
+      );
+
+      var missing = this.declared
+        .stream()
+        .filter(index -> !existing.containsKey(describe(index)))
+        .collect(Collectors.toList());
+
+      if (missing.isEmpty())
+        return;
+
+      var created = this.collection.createIndexes(missing);
+
+      logger.info("Created indexes: {}", created);
+    }
+    catch (MongoException e) {
+      logger.error("Failed to ensure indexes!", e);
+    }
+  }
+
+  /**
+   * Run ensure in a background daemon thread.
+   */
+  public Thread ensureAsync() {
+    var thread = new Thread(this::ensure, "index-manager");
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+}
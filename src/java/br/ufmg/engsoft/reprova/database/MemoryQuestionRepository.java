@@ -0,0 +1,643 @@
+package br.ufmg.engsoft.reprova.database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.database.codecs.QuestionCodec;
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
+import br.ufmg.engsoft.reprova.logging.LogSampler;
+
+
+/**
+ * In process repository for questions, for single node deployments, tests and benchmarks.
+ * Questions are kept by id in a ConcurrentHashMap, with secondary indexes on theme and
+ * privacy in concurrent skip list sets, sorted by id for keyset pagination. Reads take no
+ * locks. Writes to a question are serialized by the map, and readers recheck the question
+ * itself, so a listing never returns a question that doesn't match.
+ * Optionally, questions are loaded from a snapshot file on startup and saved to it
+ * periodically and on shutdown, in the export format: a json question per line.
+ */
+public final class MemoryQuestionRepository implements QuestionRepository {
+  /**
+   * Singleton instance.
+   */
+  private static MemoryQuestionRepository instance;
+
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(MemoryQuestionRepository.class);
+
+  /**
+   * Samplers for the per question messages.
+   */
+  protected static final LogSampler missingLog =
+    new LogSampler(logger, Level.INFO, "No such question");
+  protected static final LogSampler storedLog =
+    new LogSampler(logger, Level.INFO, "Stored question");
+
+  /**
+   * Snapshot file, from 'REPROVA_MEMORY_SNAPSHOT' environment variable. Defaults to none.
+   */
+  protected static final String snapshotFile = Config.getInstance().get("REPROVA_MEMORY_SNAPSHOT");
+
+  /**
+   * Time in seconds between snapshots, from 'REPROVA_MEMORY_SNAPSHOT_INTERVAL' environment
+   * variable. Defaults to 60. Snapshots are skipped if nothing changed.
+   */
+  protected static final long snapshotInterval = Long.parseLong(
+    Config.getInstance().get("REPROVA_MEMORY_SNAPSHOT_INTERVAL", "60")
+  );
+
+  /**
+   * A stored question, and the same question without the statement, for listings.
+   */
+  protected static final class Entry {
+    final Question question;
+    final Question summary;
+
+    Entry(Question question) {
+      this.question = question;
+      this.summary = summary(question);
+    }
+  }
+
+  /**
+   * Questions, by id.
+   */
+  protected final ConcurrentHashMap<String, Entry> questions = new ConcurrentHashMap<>();
+
+  /**
+   * All ids, sorted.
+   */
+  protected final ConcurrentSkipListSet<String> ids = new ConcurrentSkipListSet<>();
+
+  /**
+   * Sorted ids, by theme.
+   */
+  protected final ConcurrentHashMap<String, ConcurrentSkipListSet<String>> byTheme =
+    new ConcurrentHashMap<>();
+
+  /**
+   * Sorted ids, by privacy.
+   */
+  protected final ConcurrentHashMap<Boolean, ConcurrentSkipListSet<String>> byPvt =
+    new ConcurrentHashMap<>();
+
+  /**
+   * Version of the data, bumped on every write.
+   */
+  protected final AtomicLong version = new AtomicLong();
+
+  /**
+   * The snapshot file, or null.
+   */
+  protected final Path snapshot;
+
+  /**
+   * Version of the data in the snapshot file.
+   */
+  protected long snapshotVersion = -1;
+
+
+
+  /**
+   * Basic constructor.
+   * Loads the given snapshot file, if it exists.
+   * @param snapshot  the snapshot file, or null for none
+   * @throws UncheckedIOException  if the snapshot couldn't be read
+   */
+  public MemoryQuestionRepository(Path snapshot) {
+    this.snapshot = snapshot;
+
+    if (snapshot != null && Files.exists(snapshot))
+      this.load(snapshot);
+  }
+
+  /**
+   * Returns the application's MemoryQuestionRepository instance.
+   * Snapshots are scheduled if a snapshot file is configured.
+   */
+  public static synchronized MemoryQuestionRepository getInstance() {
+    if (instance == null) {
+      instance = new MemoryQuestionRepository(snapshotFile == null ? null : Path.of(snapshotFile));
+
+      if (instance.snapshot != null)
+        instance.scheduleSnapshots(snapshotInterval);
+    }
+
+    return instance;
+  }
+
+
+  /**
+   * The given question, without the statement.
+   */
+  protected static Question summary(Question question) {
+    var builder = new QuestionBuilder()
+      .id(question.id)
+      .theme(question.theme)
+      .description(question.description)
+      .record(question.record)
+      .pvt(question.pvt);
+
+    if (question instanceof MultipleChoiceQuestion) {
+      var multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+      builder
+        .type("multiple_choice")
+        .optCount(multipleChoiceQuestion.optCount)
+        .options(multipleChoiceQuestion.options);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * The key for the given id, in ObjectId's canonical form, so that keys sort in insertion
+   * order like mongo's ids.
+   * @throws IllegalArgumentException  if id isn't a valid id
+   */
+  protected static String key(String id) {
+    return new ObjectId(id).toHexString();
+  }
+
+  /**
+   * The sorted ids set of the given index entry, created if absent.
+   */
+  protected static <K> NavigableSet<String> index(
+    ConcurrentHashMap<K, ConcurrentSkipListSet<String>> index,
+    K value
+  ) {
+    var ids = index.get(value); // doesn't allocate, unlike computeIfAbsent.
+    return ids != null ? ids : index.computeIfAbsent(value, key -> new ConcurrentSkipListSet<>());
+  }
+
+
+  /**
+   * Store the question under the given id, replacing any previous one.
+   * Indexes are updated while holding the map's lock on the id. A reader may find an id in
+   * an index before or after it's in the map, which is why readers check the entry.
+   */
+  protected void put(String id, Question question) {
+    this.questions.compute(id, (key, previous) -> {
+      if (previous != null)
+        this.unindex(key, previous.question);
+
+      this.index(key, question);
+      return new Entry(question);
+    });
+
+    this.version.incrementAndGet();
+  }
+
+  protected void index(String id, Question question) {
+    this.ids.add(id);
+    index(this.byTheme, question.theme).add(id);
+    index(this.byPvt, question.pvt).add(id);
+  }
+
+  protected void unindex(String id, Question question) {
+    this.ids.remove(id);
+    index(this.byTheme, question.theme).remove(id);
+    index(this.byPvt, question.pvt).remove(id);
+  }
+
+
+  @Override
+  public Question get(String id) {
+    if (id == null)
+      throw new IllegalArgumentException("id mustn't be null");
+
+    var entry = this.questions.get(key(id));
+    if (entry == null) {
+      if (missingLog.sample())
+        logger.info("No such question {}", id);
+      return null;
+    }
+
+    return entry.question;
+  }
+
+
+  @Override
+  public List<Question> getAll(List<String> ids) {
+    if (ids == null)
+      throw new IllegalArgumentException("ids mustn't be null");
+
+    var questions = new ArrayList<Question>(ids.size());
+    for (var id : ids)
+      questions.add(id == null || !ObjectId.isValid(id) ? null : this.get(id));
+
+    return questions;
+  }
+
+
+  @Override
+  public long version() {
+    return this.version.get();
+  }
+
+
+  @Override
+  public Collection<Question> list(String theme, Boolean pvt) {
+    return this.page(theme, pvt, null, Integer.MAX_VALUE);
+  }
+
+
+  @Override
+  public List<Question> list(String theme, Boolean pvt, String after, int limit) {
+    if (limit <= 0)
+      throw new IllegalArgumentException("limit must be positive");
+
+    return this.page(theme, pvt, after, limit);
+  }
+
+
+  @Override
+  public Stream<Question> stream(String theme, Boolean pvt, String after, int limit) {
+    return this.list(theme, pvt, after, limit).stream();
+  }
+
+
+  /**
+   * Collect a page of summaries, scanning the most selective index: theme, then privacy.
+   */
+  protected List<Question> page(String theme, Boolean pvt, String after, int limit) {
+    NavigableSet<String> candidates =
+      theme != null ? this.byTheme.get(theme)
+      : pvt != null ? this.byPvt.get(pvt)
+      : this.ids;
+
+    if (candidates == null)
+      return new ArrayList<>();
+
+    if (after != null)
+      candidates = candidates.tailSet(key(after), false);
+
+    var result = new ArrayList<Question>(Math.min(limit, 128));
+
+    for (var id : candidates) {
+      if (result.size() == limit)
+        break;
+
+      var entry = this.questions.get(id);
+      if (entry == null)
+        continue; // removed meanwhile.
+
+      var question = entry.question;
+      if (theme != null && !theme.equals(question.theme))
+        continue;
+      if (pvt != null && pvt != question.pvt)
+        continue;
+
+      result.add(entry.summary);
+    }
+
+    return result;
+  }
+
+
+  @Override
+  public Stream<Question> export(int batchSize) {
+    if (batchSize <= 0)
+      throw new IllegalArgumentException("batchSize must be positive");
+
+    return this.ids
+      .stream()
+      .map(this.questions::get)
+      .filter(Objects::nonNull)
+      .map(entry -> entry.question);
+  }
+
+
+  @Override
+  public boolean add(Question question) {
+    if (question == null)
+      throw new IllegalArgumentException("question mustn't be null");
+
+    if (!QuestionDAO.checkMultipleChoice(question))
+      return false;
+
+    if (question.id != null)
+      throw new IllegalArgumentException("to update use the put method");
+
+    var id = new ObjectId().toHexString();
+    this.put(id, QuestionCodec.withId(question, id));
+
+    if (storedLog.sample())
+      logger.info("Stored question {}", id);
+
+    return true;
+  }
+
+
+  @Override
+  public List<WriteResult> addAll(List<Question> questions) {
+    if (questions == null)
+      throw new IllegalArgumentException("questions mustn't be null");
+
+    var results = new ArrayList<WriteResult>(questions.size());
+
+    for (var question : questions) {
+      String error;
+      try {
+        error = question == null ? "question mustn't be null"
+              : question.id != null ? "to update use the put method"
+              : !QuestionDAO.checkMultipleChoice(question) ? "invalid multiple choice question"
+              : null;
+      }
+      catch (RuntimeException | Error e) {
+        error = String.valueOf(e.getMessage());
+      }
+
+      if (error != null) {
+        results.add(WriteResult.failed(null, error));
+        continue;
+      }
+
+      var id = new ObjectId().toHexString();
+      this.put(id, QuestionCodec.withId(question, id));
+      results.add(WriteResult.ok(id));
+    }
+
+    logger.info("Stored {} questions of the batch", questions.size());
+
+    return results;
+  }
+
+
+  /**
+   * @return Whether the question was successfully updated, false if there's no such
+   *         question.
+   */
+  @Override
+  public boolean update(String id, Question question) {
+    if (id == null)
+      throw new IllegalArgumentException("id mustn't be null");
+    if (question == null)
+      throw new IllegalArgumentException("question mustn't be null");
+
+    if (!QuestionDAO.checkMultipleChoice(question))
+      return false;
+
+    var replaced = new boolean[1];
+    this.questions.computeIfPresent(key(id), (key, previous) -> {
+      var replacement = QuestionCodec.withId(question, key); // mustn't change the id.
+
+      this.unindex(key, previous.question);
+      this.index(key, replacement);
+
+      replaced[0] = true;
+      return new Entry(replacement);
+    });
+
+    if (!replaced[0]) {
+      logger.warn("Failed to replace question {}", id);
+      return false;
+    }
+
+    this.version.incrementAndGet();
+    logger.info("Updated question {}", id);
+
+    return true;
+  }
+
+
+  /**
+   * @return Whether the question was successfully patched, false if there's no such
+   *         question or the patch doesn't apply to it.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean patch(String id, QuestionPatch patch) {
+    if (id == null)
+      throw new IllegalArgumentException("id mustn't be null");
+    if (patch == null)
+      throw new IllegalArgumentException("patch mustn't be null");
+
+    patch.validate();
+
+    var fields = patch.getSet();
+    if (
+      patch.touchesOptions()
+        && !QuestionDAO.checkMultipleChoice(
+          (String) fields.get("optCount"),
+          (List<String>) fields.get("options")
+        )
+    )
+      return false;
+
+    var patched = new boolean[1];
+    this.questions.computeIfPresent(key(id), (key, previous) -> {
+      Question replacement;
+      try {
+        replacement = patch.apply(previous.question);
+      }
+      catch (IllegalArgumentException e) { // options of an open question.
+        return previous;
+      }
+
+      this.unindex(key, previous.question);
+      this.index(key, replacement);
+
+      patched[0] = true;
+      return new Entry(replacement);
+    });
+
+    if (!patched[0]) {
+      logger.warn("Failed to patch question {}", id);
+      return false;
+    }
+
+    this.version.incrementAndGet();
+    logger.info("Patched question {}", id);
+
+    return true;
+  }
+
+
+  @Override
+  public boolean remove(String id) {
+    if (id == null)
+      throw new IllegalArgumentException("id mustn't be null");
+
+    var removed = new boolean[1];
+    this.questions.computeIfPresent(key(id), (key, entry) -> {
+      this.unindex(key, entry.question);
+      removed[0] = true;
+      return null;
+    });
+
+    if (!removed[0]) {
+      logger.warn("Failed to delete question {}", id);
+      return false;
+    }
+
+    this.version.incrementAndGet();
+    logger.info("Deleted question {}", id);
+
+    return true;
+  }
+
+
+  @Override
+  public List<WriteResult> removeAll(List<String> ids) {
+    if (ids == null)
+      throw new IllegalArgumentException("ids mustn't be null");
+
+    var results = new ArrayList<WriteResult>(ids.size());
+    var removed = new boolean[1];
+    var count = 0;
+
+    for (var id : ids) {
+      if (id == null || !ObjectId.isValid(id)) {
+        results.add(WriteResult.failed(id, "invalid id"));
+        continue;
+      }
+
+      removed[0] = false;
+      this.questions.computeIfPresent(key(id), (key, entry) -> {
+        this.unindex(key, entry.question);
+        removed[0] = true;
+        return null;
+      });
+
+      if (removed[0]) {
+        results.add(WriteResult.ok(id));
+        count++;
+      }
+      else
+        results.add(WriteResult.failed(id, "no such question"));
+    }
+
+    if (count > 0)
+      this.version.incrementAndGet();
+    logger.info("Deleted {} of {} questions of the batch", count, ids.size());
+
+    return results;
+  }
+
+
+  /**
+   * Load the questions in the given snapshot file.
+   */
+  protected void load(Path file) {
+    var json = Json.getInstance();
+
+    try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+      lines
+        .filter(line -> !line.isBlank())
+        .map(line -> json.parse(line, QuestionBuilder.class).build())
+        .forEach(question -> this.put(key(question.id), question));
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    logger.info("Loaded {} questions from {}", this.questions.size(), file);
+  }
+
+
+  /**
+   * Save all questions to the snapshot file, unless nothing changed since the last save.
+   * The file is written aside and then moved over, so it's never left half written.
+   * @throws IllegalStateException  if there's no snapshot file
+   * @throws UncheckedIOException  if the snapshot couldn't be written
+   */
+  public synchronized void snapshot() {
+    if (this.snapshot == null)
+      throw new IllegalStateException("no snapshot file");
+
+    var version = this.version();
+    if (version == this.snapshotVersion)
+      return;
+
+    var json = Json.getInstance();
+    var temporary = this.snapshot.resolveSibling(this.snapshot.getFileName() + ".tmp");
+
+    var count = 0;
+    try (
+      var writer = new BufferedWriter(
+        new OutputStreamWriter(Files.newOutputStream(temporary), StandardCharsets.UTF_8)
+      );
+      var questions = this.export(1)
+    ) {
+      for (var question : (Iterable<Question>) questions::iterator) {
+        json.render(question, writer);
+        writer.write('\n');
+        count++;
+      }
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    try {
+      Files.move(
+        temporary,
+        this.snapshot,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE
+      );
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    this.snapshotVersion = version;
+    logger.info("Saved {} questions to {}", count, this.snapshot);
+  }
+
+
+  /**
+   * Save snapshots periodically and on shutdown, on a daemon thread.
+   */
+  protected void scheduleSnapshots(long interval) {
+    Runnable save = () -> {
+      try {
+        this.snapshot();
+      }
+      catch (RuntimeException e) {
+        logger.error("Failed to save snapshot to {}", this.snapshot, e);
+      }
+    };
+
+    var scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "memory-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(save, interval, interval, TimeUnit.SECONDS);
+
+    Runtime.getRuntime().addShutdownHook(new Thread(save, "memory-snapshot-shutdown"));
+
+    logger.info("Saving snapshots to {} every {}s", this.snapshot, interval);
+  }
+}
@@ -0,0 +1,373 @@
+package br.ufmg.engsoft.reprova.database;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import br.ufmg.engsoft.reprova.metrics.Histogram;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
+
+
+/**
+ * Repository decorator recording the duration, result size and failures of each operation,
+ * and tracing it. Streams are timed from opening to closing, so their time includes the
+ * consumer's.
+ */
+public final class MeteredQuestionRepository implements QuestionRepository {
+  /**
+   * Singleton instance.
+   */
+  private static MeteredQuestionRepository instance;
+
+  /**
+   * Metrics of an operation.
+   */
+  protected static final class Operation {
+    final Histogram time;
+    final Histogram results;
+    final LongAdder errors;
+
+    Operation(Metrics metrics, String name) {
+      var labels = Metrics.labels("operation", name);
+
+      this.time = metrics.histogram(
+        "reprova_repository_seconds",
+        "Duration of question repository operations.",
+        labels,
+        Histogram::durations
+      );
+      this.results = metrics.histogram(
+        "reprova_repository_results",
+        "Number of questions returned or written by question repository operations.",
+        labels,
+        Histogram::sizes
+      );
+      this.errors = metrics.counter(
+        "reprova_repository_errors_total",
+        "Question repository operations that threw.",
+        labels
+      );
+    }
+  }
+
+  /**
+   * Tracer, for the operation spans.
+   */
+  protected static final Tracer tracer = Tracer.getInstance();
+
+  /**
+   * The metered repository.
+   */
+  protected final QuestionRepository repository;
+
+  protected final Operation get;
+  protected final Operation getAll;
+  protected final Operation list;
+  protected final Operation stream;
+  protected final Operation export;
+  protected final Operation add;
+  protected final Operation addAll;
+  protected final Operation update;
+  protected final Operation patch;
+  protected final Operation remove;
+  protected final Operation removeAll;
+
+
+
+  /**
+   * Basic constructor.
+   * @param repository  the repository to meter
+   * @param metrics     the registry to record in
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public MeteredQuestionRepository(QuestionRepository repository, Metrics metrics) {
+    if (repository == null)
+      throw new IllegalArgumentException("repository mustn't be null");
+    if (metrics == null)
+      throw new IllegalArgumentException("metrics mustn't be null");
+
+    this.repository = repository;
+
+    this.get = new Operation(metrics, "get");
+    this.getAll = new Operation(metrics, "getAll");
+    this.list = new Operation(metrics, "list");
+    this.stream = new Operation(metrics, "stream");
+    this.export = new Operation(metrics, "export");
+    this.add = new Operation(metrics, "add");
+    this.addAll = new Operation(metrics, "addAll");
+    this.update = new Operation(metrics, "update");
+    this.patch = new Operation(metrics, "patch");
+    this.remove = new Operation(metrics, "remove");
+    this.removeAll = new Operation(metrics, "removeAll");
+  }
+
+  /**
+   * Returns the application's configured repository, metered.
+   */
+  public static synchronized MeteredQuestionRepository getInstance() {
+    if (instance == null)
+      instance = new MeteredQuestionRepository(
+        QuestionRepository.getStore(),
+        Metrics.getInstance()
+      );
+
+    return instance;
+  }
+
+
+  @Override
+  public Question get(String id) {
+    var span = tracer.start("repository.get");
+    var start = System.nanoTime();
+    try {
+      var question = this.repository.get(id);
+      this.get.results.record(question == null ? 0 : 1);
+      return question;
+    }
+    catch (RuntimeException e) {
+      this.get.errors.increment();
+      throw e;
+    }
+    finally {
+      this.get.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public List<Question> getAll(List<String> ids) {
+    var span = tracer.start("repository.getAll");
+    var start = System.nanoTime();
+    try {
+      var questions = this.repository.getAll(ids);
+      this.getAll.results.record(questions.stream().filter(Objects::nonNull).count());
+      return questions;
+    }
+    catch (RuntimeException e) {
+      this.getAll.errors.increment();
+      throw e;
+    }
+    finally {
+      this.getAll.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public long version() {
+    return this.repository.version();
+  }
+
+
+  @Override
+  public Collection<Question> list(String theme, Boolean pvt) {
+    var span = tracer.start("repository.list");
+    var start = System.nanoTime();
+    try {
+      var questions = this.repository.list(theme, pvt);
+      this.list.results.record(questions.size());
+      return questions;
+    }
+    catch (RuntimeException e) {
+      this.list.errors.increment();
+      throw e;
+    }
+    finally {
+      this.list.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public List<Question> list(String theme, Boolean pvt, String after, int limit) {
+    var span = tracer.start("repository.list");
+    var start = System.nanoTime();
+    try {
+      var questions = this.repository.list(theme, pvt, after, limit);
+      this.list.results.record(questions.size());
+      return questions;
+    }
+    catch (RuntimeException e) {
+      this.list.errors.increment();
+      throw e;
+    }
+    finally {
+      this.list.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public Stream<Question> stream(String theme, Boolean pvt, String after, int limit) {
+    return this.meter(this.stream, "repository.stream", () -> this.repository.stream(theme, pvt, after, limit));
+  }
+
+
+  @Override
+  public Stream<Question> export(int batchSize) {
+    return this.meter(this.export, "repository.export", () -> this.repository.export(batchSize));
+  }
+
+
+  /**
+   * Open the stream, counting its questions and recording when closed.
+   */
+  protected Stream<Question> meter(
+    Operation operation,
+    String name,
+    Supplier<Stream<Question>> open
+  ) {
+    var span = tracer.start(name);
+    var start = System.nanoTime();
+
+    Stream<Question> questions;
+    try {
+      questions = open.get();
+    }
+    catch (RuntimeException e) {
+      operation.errors.increment();
+      operation.time.recordSince(start);
+      span.close();
+      throw e;
+    }
+
+    var count = new LongAdder();
+    return questions
+      .peek(question -> count.increment())
+      .onClose(() -> {
+        operation.results.record(count.sum());
+        operation.time.recordSince(start);
+        span.close();
+      });
+  }
+
+
+  @Override
+  public boolean add(Question question) {
+    var span = tracer.start("repository.add");
+    var start = System.nanoTime();
+    try {
+      var added = this.repository.add(question);
+      this.add.results.record(added ? 1 : 0);
+      return added;
+    }
+    catch (RuntimeException | Error e) { // invalid multiple choice questions throw Error.
+      this.add.errors.increment();
+      throw e;
+    }
+    finally {
+      this.add.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public List<WriteResult> addAll(List<Question> questions) {
+    var span = tracer.start("repository.addAll");
+    var start = System.nanoTime();
+    try {
+      var results = this.repository.addAll(questions);
+      this.addAll.results.record(results.size());
+      return results;
+    }
+    catch (RuntimeException e) {
+      this.addAll.errors.increment();
+      throw e;
+    }
+    finally {
+      this.addAll.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public boolean update(String id, Question question) {
+    var span = tracer.start("repository.update");
+    var start = System.nanoTime();
+    try {
+      var updated = this.repository.update(id, question);
+      this.update.results.record(updated ? 1 : 0);
+      return updated;
+    }
+    catch (RuntimeException | Error e) {
+      this.update.errors.increment();
+      throw e;
+    }
+    finally {
+      this.update.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public boolean patch(String id, QuestionPatch patch) {
+    var span = tracer.start("repository.patch");
+    var start = System.nanoTime();
+    try {
+      var patched = this.repository.patch(id, patch);
+      this.patch.results.record(patched ? 1 : 0);
+      return patched;
+    }
+    catch (RuntimeException | Error e) {
+      this.patch.errors.increment();
+      throw e;
+    }
+    finally {
+      this.patch.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public boolean remove(String id) {
+    var span = tracer.start("repository.remove");
+    var start = System.nanoTime();
+    try {
+      var removed = this.repository.remove(id);
+      this.remove.results.record(removed ? 1 : 0);
+      return removed;
+    }
+    catch (RuntimeException e) {
+      this.remove.errors.increment();
+      throw e;
+    }
+    finally {
+      this.remove.time.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  @Override
+  public List<WriteResult> removeAll(List<String> ids) {
+    var span = tracer.start("repository.removeAll");
+    var start = System.nanoTime();
+    try {
+      var results = this.repository.removeAll(ids);
+      this.removeAll.results.record(results.size());
+      return results;
+    }
+    catch (RuntimeException e) {
+      this.removeAll.errors.increment();
+      throw e;
+    }
+    finally {
+      this.removeAll.time.recordSince(start);
+      span.close();
+    }
+  }
+}
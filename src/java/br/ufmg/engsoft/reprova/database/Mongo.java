@@ -1,14 +1,23 @@
 package br.ufmg.engsoft.reprova.database;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoCollection;
 
 import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+
 
 /**
  * Mongodb instance.
@@ -28,20 +37,111 @@ public class Mongo {
    * The mongodb driver instance.
    */
   protected final MongoDatabase db;
+
+  /**
+   * The client settings, shared by the synchronous and asynchronous clients.
+   */
+  protected final MongoClientSettings settings;
+
+  /**
+   * The asynchronous driver instance, created on first use.
+   * The async driver is deprecated in favor of the reactive streams one, see AsyncQuestionDAO.
+   */
+  @SuppressWarnings("deprecation")
+  protected com.mongodb.async.client.MongoDatabase asyncDb;
+
+  /**
+   * Connection pool metrics.
+   */
+  protected final PoolMetrics poolMetrics = new PoolMetrics();
   
   /**
    * Instantiate for access in the application database.
+   * Pool and socket settings given in the environment override the connection string's.
    */
   private Mongo() {
     /**
      * Full connection string, obtained from 'REPROVA_MONGO' environment variable.
      */
-    String endpoint = System.getenv("REPROVA_MONGO");
+    String endpoint = Config.getInstance().get("REPROVA_MONGO");
+
+    this.settings = MongoClientSettings.builder()
+      .applyConnectionString(new ConnectionString(endpoint))
+      .applyToConnectionPoolSettings(pool -> {
+        var minSize = env("REPROVA_MONGO_POOL_MIN");
+        if (minSize != null)
+          pool.minSize(minSize.intValue());
+
+        var maxSize = env("REPROVA_MONGO_POOL_MAX");
+        if (maxSize != null)
+          pool.maxSize(maxSize.intValue());
+
+        var maxWait = env("REPROVA_MONGO_POOL_WAIT");
+        if (maxWait != null)
+          pool.maxWaitTime(maxWait, TimeUnit.MILLISECONDS);
+
+        var maxIdle = env("REPROVA_MONGO_POOL_IDLE");
+        if (maxIdle != null)
+          pool.maxConnectionIdleTime(maxIdle, TimeUnit.MILLISECONDS);
+
+        pool.addConnectionPoolListener(this.poolMetrics);
+      })
+      .applyToSocketSettings(socket -> {
+        var connectTimeout = env("REPROVA_MONGO_CONNECT_TIMEOUT");
+        if (connectTimeout != null)
+          socket.connectTimeout(connectTimeout.intValue(), TimeUnit.MILLISECONDS);
+
+        var readTimeout = env("REPROVA_MONGO_SOCKET_TIMEOUT");
+        if (readTimeout != null)
+          socket.readTimeout(readTimeout.intValue(), TimeUnit.MILLISECONDS);
+      })
+      .build();
+
     this.db = MongoClients
-    .create(endpoint)
+    .create(this.settings)
     .getDatabase("reprova");
     
     logger.info("connected to db 'reprova'");
+    logger.info(
+      "Pool settings: " + this.settings.getConnectionPoolSettings()
+        + ", " + this.settings.getSocketSettings()
+    );
+
+    this.poolMetrics.register(Metrics.getInstance());
+
+    var logInterval = env("REPROVA_MONGO_POOL_LOG");
+    if (logInterval != null && logInterval > 0) {
+      var scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "pool-metrics");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+      scheduler.scheduleAtFixedRate(
+        () -> logger.info(this.poolMetrics.toString()),
+        logInterval,
+        logInterval,
+        TimeUnit.SECONDS
+      );
+    }
+  }
+
+  /**
+   * Read a numeric setting.
+   * @return the value, or null if the setting isn't set
+   * @throws IllegalArgumentException  if the setting isn't a number
+   */
+  protected static Long env(String name) {
+    var value = Config.getInstance().get(name);
+    if (value == null || value.isBlank())
+      return null;
+
+    try {
+      return Long.valueOf(value.trim());
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid " + name + ": " + value);
+    }
   }
     
   /**
@@ -53,10 +153,57 @@ public class Mongo {
     return instance;
   }
 
+  /**
+   * Returns the connection pool metrics.
+   */
+  public PoolMetrics poolMetrics() {
+    return this.poolMetrics;
+  }
+
   /**
    * Gets the given collection in the database.
    */
   public MongoCollection<Document> getCollection(String name) {
     return db.getCollection(name);
   }
+
+  /**
+   * Gets the given collection in the database, through the asynchronous driver, decoding
+   * documents to the given class. The asynchronous client is created on the first call,
+   * with its own connection pool.
+   * The registry must provide a codec for the class.
+   * The async driver is deprecated in favor of the reactive streams one, see AsyncQuestionDAO.
+   */
+  @SuppressWarnings("deprecation")
+  public synchronized <T> com.mongodb.async.client.MongoCollection<T> getAsyncCollection(
+    String name,
+    Class<T> cls,
+    CodecRegistry registry
+  ) {
+    if (this.asyncDb == null) {
+      this.asyncDb = com.mongodb.async.client.MongoClients
+        .create(this.settings)
+        .getDatabase("reprova");
+
+      logger.info("connected to db 'reprova' (async)");
+    }
+
+    return this.asyncDb
+      .getCollection(name, cls)
+      .withCodecRegistry(registry);
+  }
+
+  /**
+   * Gets the given collection in the database, decoding documents to the given class.
+   * The registry must provide a codec for the class.
+   */
+  public <T> MongoCollection<T> getCollection(
+    String name,
+    Class<T> cls,
+    CodecRegistry registry
+  ) {
+    return db
+      .getCollection(name, cls)
+      .withCodecRegistry(registry);
+  }
 }
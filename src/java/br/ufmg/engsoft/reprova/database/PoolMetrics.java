@@ -0,0 +1,191 @@
+package br.ufmg.engsoft.reprova.database;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+
+
+/**
+ * Connection pool metrics, fed by the driver's pool events.
+ * Tracks the open and checked out connections, the wait queue size, and the time threads
+ * spend waiting for a connection. Counts add up across all servers in the cluster, and
+ * across the synchronous and asynchronous clients, though checkout waits are only timed
+ * reliably for the synchronous one.
+ */
+public class PoolMetrics extends ConnectionPoolListenerAdapter {
+  /**
+   * Number of open connections.
+   */
+  protected final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Number of connections currently checked out.
+   */
+  protected final AtomicInteger checkedOut = new AtomicInteger();
+
+  /**
+   * Number of threads currently waiting for a connection.
+   */
+  protected final AtomicInteger waitQueueSize = new AtomicInteger();
+
+  /**
+   * Total number of checkouts.
+   */
+  protected final LongAdder checkouts = new LongAdder();
+
+  /**
+   * Total time spent waiting for checkouts, in nanoseconds.
+   */
+  protected final LongAdder checkoutNanos = new LongAdder();
+
+  /**
+   * Longest wait for a checkout, in nanoseconds.
+   */
+  protected final LongAccumulator maxCheckoutNanos = new LongAccumulator(Math::max, 0);
+
+  /**
+   * When the current thread entered the wait queue. The synchronous driver enters and
+   * exits the queue in the same thread.
+   */
+  protected final ThreadLocal<Long> waitStart = new ThreadLocal<>();
+
+
+
+  @Override
+  public void connectionAdded(ConnectionAddedEvent event) {
+    this.size.incrementAndGet();
+  }
+
+  @Override
+  public void connectionRemoved(ConnectionRemovedEvent event) {
+    this.size.decrementAndGet();
+  }
+
+  @Override
+  public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+    this.checkedOut.incrementAndGet();
+  }
+
+  @Override
+  public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+    this.checkedOut.decrementAndGet();
+  }
+
+  @Override
+  public void waitQueueEntered(ConnectionPoolWaitQueueEnteredEvent event) {
+    this.waitQueueSize.incrementAndGet();
+    this.waitStart.set(System.nanoTime());
+  }
+
+  @Override
+  public void waitQueueExited(ConnectionPoolWaitQueueExitedEvent event) {
+    this.waitQueueSize.decrementAndGet();
+
+    var start = this.waitStart.get();
+    if (start == null)
+      return;
+
+    this.waitStart.remove();
+
+    var elapsed = System.nanoTime() - start;
+    this.checkouts.increment();
+    this.checkoutNanos.add(elapsed);
+    this.maxCheckoutNanos.accumulate(elapsed);
+  }
+
+
+
+  /**
+   * Number of open connections.
+   */
+  public int getSize() {
+    return this.size.get();
+  }
+
+  /**
+   * Number of connections currently checked out.
+   */
+  public int getCheckedOut() {
+    return this.checkedOut.get();
+  }
+
+  /**
+   * Number of threads currently waiting for a connection.
+   */
+  public int getWaitQueueSize() {
+    return this.waitQueueSize.get();
+  }
+
+  /**
+   * Total number of timed checkouts.
+   */
+  public long getCheckouts() {
+    return this.checkouts.sum();
+  }
+
+  /**
+   * Total time spent waiting for checkouts, in nanoseconds.
+   */
+  public long getCheckoutNanos() {
+    return this.checkoutNanos.sum();
+  }
+
+  /**
+   * Longest wait for a checkout, in nanoseconds.
+   */
+  public long getMaxCheckoutNanos() {
+    return this.maxCheckoutNanos.get();
+  }
+
+
+  /**
+   * Expose the pool metrics in the given registry.
+   */
+  public void register(Metrics metrics) {
+    metrics.gauge(
+      "reprova_mongo_pool_connections", "Open connections in the mongodb pool.",
+      "", this::getSize
+    );
+    metrics.gauge(
+      "reprova_mongo_pool_checked_out", "Connections currently checked out of the mongodb pool.",
+      "", this::getCheckedOut
+    );
+    metrics.gauge(
+      "reprova_mongo_pool_wait_queue", "Threads waiting for a mongodb connection.",
+      "", this::getWaitQueueSize
+    );
+    metrics.counter(
+      "reprova_mongo_pool_checkouts_total", "Timed mongodb connection checkouts.",
+      "", this::getCheckouts
+    );
+    metrics.counter(
+      "reprova_mongo_pool_checkout_seconds_total", "Time waiting for mongodb connections.",
+      "", () -> this.getCheckoutNanos() / 1e9
+    );
+  }
+
+
+  @Override
+  public String toString() {
+    var checkouts = this.getCheckouts();
+    var meanMicros = checkouts == 0 ? 0 : this.getCheckoutNanos() / checkouts / 1000;
+
+    return "Pool: "
+      + "size " + this.getSize()
+      + ", checked out " + this.getCheckedOut()
+      + ", wait queue " + this.getWaitQueueSize()
+      + ", checkouts " + checkouts
+      + ", mean wait " + meanMicros + "us"
+      + ", max wait " + this.getMaxCheckoutNanos() / 1000 + "us";
+  }
+}
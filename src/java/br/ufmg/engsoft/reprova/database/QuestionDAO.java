@@ -1,34 +1,78 @@
 package br.ufmg.engsoft.reprova.database;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.or;
+import static com.mongodb.client.model.Filters.type;
 import static com.mongodb.client.model.Projections.exclude;
 import static com.mongodb.client.model.Projections.fields;
+import static com.mongodb.client.model.Projections.include;
+import static com.mongodb.client.model.Sorts.ascending;
+import static com.mongodb.client.model.Updates.combine;
+import static com.mongodb.client.model.Updates.set;
+import static com.mongodb.client.model.Updates.unset;
 
 
+import org.bson.BsonDocumentReader;
+import org.bson.BsonType;
 import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
-import br.ufmg.engsoft.reprova.mime.json.Json;
-import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.database.codecs.QuestionCodec;
+import br.ufmg.engsoft.reprova.database.codecs.QuestionCodecProvider;
 import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
 import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
+import br.ufmg.engsoft.reprova.model.Semester;
+import br.ufmg.engsoft.reprova.logging.LogSampler;
 
 
 /**
  * DAO for Question class on mongodb.
+ * Questions are encoded and decoded straight from Bson by QuestionCodec.
  */
-public final class QuestionDAO {
+public final class QuestionDAO implements QuestionRepository {
   /**
    * Singleton instance.
    */
@@ -40,14 +84,90 @@ public final class QuestionDAO {
   protected static final Logger logger = LoggerFactory.getLogger(QuestionDAO.class);
 
   /**
-   * Json formatter.
+   * Samplers for the per question messages.
+   */
+  protected static final LogSampler missingLog =
+    new LogSampler(logger, Level.INFO, "No such question");
+  protected static final LogSampler storedLog =
+    new LogSampler(logger, Level.INFO, "Stored question");
+
+  /**
+   * Bson codec for questions.
    */
-  protected final Json json;
+  protected static final QuestionCodec codec = new QuestionCodec();
+
+  /**
+   * Codec registry for the questions collection: questions, then the driver's defaults.
+   */
+  protected static final CodecRegistry registry = CodecRegistries.fromRegistries(
+    CodecRegistries.fromProviders(new QuestionCodecProvider()),
+    MongoClientSettings.getDefaultCodecRegistry()
+  );
+
+  /**
+   * Maximum number of questions in the cache, from 'REPROVA_CACHE_SIZE' environment
+   * variable. Defaults to 10000.
+   */
+  protected static final long cacheSize = Long.parseLong(
+    Config.getInstance().get("REPROVA_CACHE_SIZE", "10000")
+  );
+
+  /**
+   * Time in seconds a question stays in the cache, from 'REPROVA_CACHE_TTL' environment
+   * variable. Defaults to 60.
+   */
+  protected static final long cacheTtl = Long.parseLong(
+    Config.getInstance().get("REPROVA_CACHE_TTL", "60")
+  );
+
+  /**
+   * Maximum number of questions in each insertMany of addAll and deleteMany of removeAll,
+   * from 'REPROVA_BATCH_CHUNK' environment variable. Defaults to 1000.
+   */
+  protected static final int batchChunk = Integer.parseInt(
+    Config.getInstance().get("REPROVA_BATCH_CHUNK", "1000")
+  );
+
+  /**
+   * Indexes for the DAO's queries. Listings filter by pvt and theme, and page sorted by _id.
+   * Built in the background, so that the collection stays available while indexing.
+   */
+  protected static final List<IndexModel> indexes = List.of(
+    new IndexModel(
+      Indexes.ascending("pvt", "_id"),
+      new IndexOptions().background(true)
+    ),
+    new IndexModel(
+      Indexes.ascending("theme", "pvt", "_id"),
+      new IndexOptions().background(true)
+    )
+  );
+
+  /**
+   * Matches multiple choice questions, by type, or by their options for documents stored
+   * before the type tag existed, as QuestionCodec decodes them.
+   */
+  protected static final Bson multipleChoice = or(
+    eq("type", "multiple_choice"),
+    and(exists("type", false), type("options", BsonType.ARRAY))
+  );
 
   /**
    * Questions collection.
    */
-  protected final MongoCollection<Document> collection;
+  protected final MongoCollection<Question> collection;
+
+  /**
+   * Read-through cache for get, by id.
+   * Eviction is size based (W-TinyLFU), and entries expire after the TTL. Concurrent misses
+   * for the same id wait for a single load. Missing questions aren't cached.
+   */
+  protected final Cache<String, Question> cache;
+
+  /**
+   * Version of the collection's data, bumped on every write through this DAO.
+   */
+  protected final AtomicLong version = new AtomicLong();
   
   /**
    * Basic constructor.
@@ -56,9 +176,17 @@ public final class QuestionDAO {
   private QuestionDAO() {
     Mongo db = Mongo.getInstance();
 
-    this.collection = db.getCollection("questions");
+    this.collection = db.getCollection("questions", Question.class, registry);
+
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(cacheSize)
+      .expireAfterWrite(Duration.ofSeconds(cacheTtl))
+      .recordStats()
+      .build();
 
-    this.json = new Json();
+    logger.info("Question cache: size {}, ttl {}s", cacheSize, cacheTtl);
+
+    new IndexManager(this.collection, indexes).ensureAsync();
   }
 
   /**
@@ -72,26 +200,20 @@ public final class QuestionDAO {
 
   /**
    * Parse the given document.
+   * Queries decode questions directly, this is only for callers that hold a Document.
    * @param document  the question document, mustn't be null
    * @throws IllegalArgumentException  if any parameter is null
    * @throws IllegalArgumentException  if the given document is an invalid Question
    */
-  protected Question parseDoc(Document document) {
+  public static Question parseDoc(Document document) {
     if (document == null)
       throw new IllegalArgumentException("document mustn't be null");
 
-    var doc = document.toJson();
-
-    logger.info("Fetched question: " + doc);
-
     try {
-      var question = json
-        .parse(doc, QuestionBuilder.class)
-        .build();
-
-      logger.info("Parsed question: " + question);
-
-      return question;
+      return codec.decode(
+        new BsonDocumentReader(document.toBsonDocument(Document.class, registry)),
+        DecoderContext.builder().build()
+      );
     }
     catch (Exception e) {
       logger.error("Invalid document in database!", e);
@@ -100,28 +222,145 @@ public final class QuestionDAO {
   }
 
 
+  /**
+   * Check the given question against the multiple choice rules.
+   * @return Whether the question is valid. Non multiple choice questions always are.
+   * @throws Error  if the number of options is not the configured one
+   */
+  protected static boolean checkMultipleChoice(Question question) {
+    if (!(question instanceof MultipleChoiceQuestion))
+      return true;
+
+    MultipleChoiceQuestion multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+
+    return checkMultipleChoice(multipleChoiceQuestion.optCount, multipleChoiceQuestion.options);
+  }
+
+  /**
+   * Check the given options against the multiple choice rules.
+   * @return Whether the options are valid.
+   * @throws Error  if the number of options is not the configured one
+   */
+  protected static boolean checkMultipleChoice(String optCount, List<String> options) {
+    var allowed = Config.getInstance().options;
+    if(allowed == null || allowed != options.size()) {
+      throw new Error("Suas configurações apenas permitem questões de tamanho "+allowed+ ".");
+    }
+
+    if(options.size() != Integer.valueOf(optCount)) {
+      return false;
+    }
+
+    if(Integer.valueOf(optCount) < 2) {
+      return false;
+    }
+
+    return true;
+  }
+
+
   /**
    * Get the question with the given id.
    * @param id  the question's id in the database.
    * @return The question, or null if no such question.
    * @throws IllegalArgumentException  if any parameter is null
    */
+  @Override
   public Question get(String id) {
     if (id == null)
       throw new IllegalArgumentException("id mustn't be null");
 
+    return this.cache.get(id, this::fetch);
+  }
+
+
+  /**
+   * Fetch the question with the given id from the database, bypassing the cache.
+   * @return The question, or null if no such question.
+   */
+  protected Question fetch(String id) {
     var question = this.collection
       .find(eq(new ObjectId(id)))
-      .map(this::parseDoc)
       .first();
 
     if (question == null)
-      logger.info("No such question " + id);
+      if (missingLog.sample())
+        logger.info("No such question {}", id);
 
     return question;
   }
 
 
+  /**
+   * Get the questions with the given ids from the cache, fetching all the missing ones with
+   * a single query per chunk.
+   */
+  @Override
+  public List<Question> getAll(List<String> ids) {
+    if (ids == null)
+      throw new IllegalArgumentException("ids mustn't be null");
+
+    var valid = new ArrayList<String>(ids.size());
+    for (var id : ids)
+      if (id != null && ObjectId.isValid(id))
+        valid.add(id);
+
+    var found = this.cache.getAll(valid, this::fetchAll);
+
+    var questions = new ArrayList<Question>(ids.size());
+    for (var id : ids)
+      questions.add(id == null ? null : found.get(id));
+
+    return questions;
+  }
+
+
+  /**
+   * Fetch the questions with the given valid ids from the database, bypassing the cache.
+   * @return The found questions, by the given ids.
+   */
+  protected Map<String, Question> fetchAll(Set<? extends String> ids) {
+    var keys = new HashMap<ObjectId, String>();
+    for (var id : ids)
+      keys.put(new ObjectId(id), id);
+
+    var objectIds = new ArrayList<>(keys.keySet());
+    var found = new HashMap<String, Question>();
+
+    for (var start = 0; start < objectIds.size(); start += batchChunk) {
+      var chunk = objectIds.subList(start, Math.min(start + batchChunk, objectIds.size()));
+
+      for (var question : this.collection.find(in("_id", chunk)))
+        found.put(keys.get(new ObjectId(question.id)), question);
+    }
+
+    if (found.size() < ids.size())
+      if (missingLog.sample())
+        logger.info("No such questions: {} of {}", ids.size() - found.size(), ids.size());
+
+    return found;
+  }
+
+
+  /**
+   * The current version of the collection's data.
+   * The version increases monotonically with each add, update and remove, so anything
+   * derived from the data may be reused while the version stays the same.
+   */
+  @Override
+  public long version() {
+    return this.version.get();
+  }
+
+
+  /**
+   * Statistics of the get cache: hits, misses, evictions and load times.
+   */
+  public CacheStats cacheStats() {
+    return this.cache.stats();
+  }
+
+
   /**
    * List all the questions that match the given non-null parameters.
    * The question's statement is ommited.
@@ -131,6 +370,7 @@ public final class QuestionDAO {
    *         empty.
    * @throws IllegalArgumentException  if there is an invalid Question
    */
+  @Override
   public Collection<Question> list(String theme, Boolean pvt) {
     var filters =
       Arrays.asList(
@@ -148,70 +388,217 @@ public final class QuestionDAO {
     var result = new ArrayList<Question>();
 
     doc.projection(fields(exclude("statement")))
-      .map(this::parseDoc)
       .into(result);
 
     return result;
   }
 
 
+  /**
+   * List a page of the questions that match the given non-null parameters, in ascending
+   * id order. Pagination is keyset based: the next page starts right after the id of the
+   * last question of the current one.
+   * The question's statement is ommited.
+   * @param theme      the expected theme, or null
+   * @param pvt        the expected privacy, or null
+   * @param after      the id after which the page starts, or null for the first page
+   * @param limit      the maximum number of questions in the page, must be positive
+   * @return The questions in the page, possibly empty.
+   * @throws IllegalArgumentException  if limit isn't positive or after isn't a valid id
+   * @throws IllegalArgumentException  if there is an invalid Question
+   */
+  @Override
+  public List<Question> list(String theme, Boolean pvt, String after, int limit) {
+    var result = new ArrayList<Question>(limit);
+
+    this.page(theme, pvt, after, limit)
+      .into(result);
+
+    return result;
+  }
+
+
+  /**
+   * Lazily stream a page of the questions that match the given non-null parameters.
+   * Same as list, but documents are fetched from the database cursor and parsed only as
+   * the stream is consumed. The stream must be closed to release the cursor.
+   * @see #list(String, Boolean, String, int)
+   */
+  @Override
+  public Stream<Question> stream(String theme, Boolean pvt, String after, int limit) {
+    MongoCursor<Question> cursor = this.page(theme, pvt, after, limit)
+      .iterator();
+
+    return StreamSupport
+      .stream(
+        Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL),
+        false
+      )
+      .onClose(cursor::close);
+  }
+
+
+  /**
+   * Lazily stream all the questions in the collection, statements included, in ascending id
+   * order. Documents are fetched from the database in batches of the given size, so only a
+   * batch is held in memory at a time. The stream must be closed to release the cursor.
+   * @param batchSize  the number of documents fetched per round trip, must be positive
+   * @throws IllegalArgumentException  if batchSize isn't positive
+   */
+  @Override
+  public Stream<Question> export(int batchSize) {
+    if (batchSize <= 0)
+      throw new IllegalArgumentException("batchSize must be positive");
+
+    MongoCursor<Question> cursor = this.collection
+      .find()
+      .sort(ascending("_id"))
+      .batchSize(batchSize)
+      .iterator();
+
+    return StreamSupport
+      .stream(
+        Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL),
+        false
+      )
+      .onClose(cursor::close);
+  }
+
+
+  /**
+   * Query for a page of questions, without the statement.
+   * @see #list(String, Boolean, String, int)
+   */
+  protected FindIterable<Question> page(String theme, Boolean pvt, String after, int limit) {
+    if (limit <= 0)
+      throw new IllegalArgumentException("limit must be positive");
+
+    return this.collection
+      .find(filter(theme, pvt, after))
+      .projection(fields(exclude("statement")))
+      .sort(ascending("_id"))
+      .limit(limit);
+  }
+
+
+  /**
+   * Filter for the questions that match the given non-null parameters.
+   * @param theme      the expected theme, or null
+   * @param pvt        the expected privacy, or null
+   * @param after      the id after which questions match, or null
+   * @return The filter, empty if all parameters are null.
+   * @throws IllegalArgumentException  if after isn't a valid id
+   */
+  protected static Bson filter(String theme, Boolean pvt, String after) {
+    var filters =
+      Arrays.asList(
+        theme == null ? null : eq("theme", theme),
+        pvt == null ? null : eq("pvt", pvt),
+        after == null ? null : gt("_id", new ObjectId(after))
+      )
+      .stream()
+      .filter(Objects::nonNull) // mongo won't allow null filters.
+      .collect(Collectors.toList());
+
+    return filters.isEmpty() // mongo won't take null as a filter.
+      ? new Document()
+      : and(filters);
+  }
+
+
   /**
    * Adds the given question in the database.
    * @param question  the question to be stored
    * @return Whether the question was successfully added.
    * @throws IllegalArgumentException  if any parameter is null
    */
+  @Override
   public boolean add(Question question) {
     if (question == null)
       throw new IllegalArgumentException("question mustn't be null");
 
-    Map<String, Object> record = question.record // Convert the keys to string,
-      .entrySet()                                // and values to object.
-      .stream()
-      .collect(
-        Collectors.toMap(
-          e -> e.getKey().toString(),
-          Map.Entry::getValue
-        )
-      );
-      
-    Document doc = new Document()
-      .append("theme", question.theme)
-      .append("description", question.description)
-      .append("statement", question.statement)
-      .append("record", new Document(record))
-      .append("pvt", question.pvt);
-
-    if(question instanceof MultipleChoiceQuestion) {
-      MultipleChoiceQuestion multipleChoiceQuestion = (MultipleChoiceQuestion) question;
-      doc.append("optCount", multipleChoiceQuestion.optCount)
-      .append("options", multipleChoiceQuestion.options);
-      
-      if(Integer.valueOf(System.getenv("OPTIONS")) != multipleChoiceQuestion.options.size()) {
-        throw new Error("Suas configurações apenas permitem questões de tamanho "+System.getenv("OPTIONS")+ ".");
-      }
-      
-      if(multipleChoiceQuestion.options.size() != Integer.valueOf(multipleChoiceQuestion.optCount)) {
-        return false;
-      }
-      
-      if(Integer.valueOf(multipleChoiceQuestion.optCount) < 2) {
-        return false;
-      }
-    }
+    if (!checkMultipleChoice(question))
+      return false;
 
     var id = question.id;
     if (id != null) {
       throw new IllegalArgumentException("to update use the put method");
     }
-    
-    this.collection.insertOne(doc);
 
-    logger.info("Stored question " + doc.get("_id"));
+    var stored = codec.generateIdIfAbsentFromDocument(question);
+
+    this.collection.insertOne(stored);
+    this.version.incrementAndGet();
+
+    if (storedLog.sample())
+      logger.info("Stored question {}", stored.id);
 
     return true;
   }
 
+  /**
+   * Adds the given questions in the database, with unordered insertMany in chunks.
+   * Each question is checked as in add, and failures don't stop the others.
+   * @param questions  the questions to be stored
+   * @return The result for each question, in the same order.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  @Override
+  public List<WriteResult> addAll(List<Question> questions) {
+    if (questions == null)
+      throw new IllegalArgumentException("questions mustn't be null");
+
+    var results = new ArrayList<WriteResult>(questions.size());
+    var pending = new ArrayList<Integer>(questions.size()); // indexes to insert.
+    var stored = new ArrayList<Question>(questions.size());
+
+    for (var question : questions) {
+      String error;
+      try {
+        error = question == null ? "question mustn't be null"
+              : question.id != null ? "to update use the put method"
+              : !checkMultipleChoice(question) ? "invalid multiple choice question"
+              : null;
+      }
+      catch (RuntimeException | Error e) {
+        error = String.valueOf(e.getMessage());
+      }
+
+      if (error != null) {
+        results.add(WriteResult.failed(null, error));
+        continue;
+      }
+
+      var withId = codec.generateIdIfAbsentFromDocument(question);
+      pending.add(results.size());
+      stored.add(withId);
+      results.add(WriteResult.ok(withId.id));
+    }
+
+    for (var start = 0; start < stored.size(); start += batchChunk) {
+      var end = Math.min(start + batchChunk, stored.size());
+
+      try {
+        this.collection.insertMany(
+          stored.subList(start, end),
+          new InsertManyOptions().ordered(false)
+        );
+      }
+      catch (MongoBulkWriteException e) {
+        for (var writeError : e.getWriteErrors()) {
+          var index = pending.get(start + writeError.getIndex());
+          results.set(index, WriteResult.failed(results.get(index).id, writeError.getMessage()));
+        }
+      }
+
+      this.version.incrementAndGet();
+
+      logger.info("Stored questions {} to {} of the batch", start, end);
+    }
+
+    return results;
+  }
+
   /**
    * Updates the question with the given id to the question received.
    * @param id  the question id
@@ -219,83 +606,192 @@ public final class QuestionDAO {
    * @return Whether the question was successfully updated.
    * @throws IllegalArgumentException  if any parameter is null
    */
+  @Override
   public boolean update(String id,Question question) {
     if (id == null)
       throw new IllegalArgumentException("id mustn't be null");
     if (question == null)
       throw new IllegalArgumentException("question mustn't be null");
 
-    Map<String, Object> record = question.record // Convert the keys to string,
-      .entrySet()                                // and values to object.
-      .stream()
-      .collect(
-        Collectors.toMap(
-          e -> e.getKey().toString(),
-          Map.Entry::getValue
-        )
-      );
+    if (!checkMultipleChoice(question))
+      return false;
 
-    Document doc = new Document()
-      .append("theme", question.theme)
-      .append("description", question.description)
-      .append("statement", question.statement)
-      .append("record", new Document(record))
-      .append("pvt", question.pvt);
+    var result = this.collection.replaceOne(
+      eq(new ObjectId(id)),
+      QuestionCodec.withId(question, id) // the replacement mustn't change the _id.
+    );
 
+    // Bump first: a reader that loads the old question meanwhile sees a newer version,
+    // and doesn't cache it.
+    this.version.incrementAndGet();
+    this.cache.invalidate(id);
 
-      if(question instanceof MultipleChoiceQuestion) {
-        MultipleChoiceQuestion multipleChoiceQuestion = (MultipleChoiceQuestion) question;
-      doc.append("optCount", multipleChoiceQuestion.optCount)
-        .append("options", multipleChoiceQuestion.options);
+    if (!result.wasAcknowledged()) {
+      logger.warn("Failed to replace question {}", id);
+      return false;
+    }
+    
+    logger.info("Updated question {}", id);
 
-      if(Integer.valueOf(System.getenv("OPTIONS")) != multipleChoiceQuestion.options.size()) {
-        throw new Error("Suas configurações apenas permitem questões de tamanho "+System.getenv("OPTIONS")+ ".");
-      }
-      
-      if(multipleChoiceQuestion.options.size() != Integer.valueOf(multipleChoiceQuestion.optCount)) {
-        return false;
-      }
+    return true;
+  }
 
-      if(Integer.valueOf(multipleChoiceQuestion.optCount) < 2) {
-        return false;
-      }
+
+  /**
+   * Patches the question with the given id, with a single updateOne that sets and unsets
+   * only the touched fields. Patches of the options only match multiple choice questions.
+   * @param id     the question id
+   * @param patch  the fields to set and remove
+   * @return Whether the question was successfully patched.
+   * @throws IllegalArgumentException  if any parameter is null, or the patch is invalid
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean patch(String id, QuestionPatch patch) {
+    if (id == null)
+      throw new IllegalArgumentException("id mustn't be null");
+    if (patch == null)
+      throw new IllegalArgumentException("patch mustn't be null");
+
+    patch.validate();
+
+    var fields = patch.getSet();
+    if (
+      patch.touchesOptions()
+        && !checkMultipleChoice((String) fields.get("optCount"), (List<String>) fields.get("options"))
+    )
+      return false;
+
+    var updates = new ArrayList<Bson>(fields.size() + 1);
+    for (var field : fields.entrySet()) {
+      var value = field.getKey().equals("record")
+        ? recordDocument((Map<Semester, Map<String, Float>>) field.getValue())
+        : field.getValue();
+
+      updates.add(set(field.getKey(), value));
     }
+    for (var field : patch.getUnset())
+      updates.add(unset(field));
 
-    var result = this.collection.replaceOne(
-      eq(new ObjectId(id)),
-      doc
-    );
+    var filter = eq(new ObjectId(id));
+    if (patch.touchesOptions()) // only multiple choice questions have options.
+      filter = and(filter, multipleChoice);
 
-    if (!result.wasAcknowledged()) {
-      logger.warn("Failed to replace question " + id);
+    var result = this.collection.updateOne(filter, combine(updates));
+
+    if (result.getMatchedCount() == 0) {
+      logger.warn("Failed to patch question {}", id);
       return false;
     }
-    
-    logger.info("Updated question " + doc.get("_id"));
+
+    this.version.incrementAndGet();
+    this.cache.invalidate(id);
+
+    logger.info("Patched question {}", id);
 
     return true;
   }
 
+  /**
+   * The record as a document, as QuestionCodec stores it.
+   */
+  protected static Document recordDocument(Map<Semester, Map<String, Float>> record) {
+    var document = new Document();
+
+    for (var semester : record.entrySet()) {
+      var grades = new Document();
+      for (var grade : semester.getValue().entrySet())
+        grades.append(grade.getKey(), grade.getValue() == null ? null : grade.getValue().doubleValue());
+
+      document.append(semester.getKey().toString(), grades);
+    }
+
+    return document;
+  }
+
 
   /**
-   * Remove the question with the given id from the collection.
+   * Remove the question with the given id from the collection, in a single round trip.
    * @param id  the question id
    * @return Whether the given question was removed.
    * @throws IllegalArgumentException  if any parameter is null
    */
+  @Override
   public boolean remove(String id) {
     if (id == null)
       throw new IllegalArgumentException("id mustn't be null");
 
-    Question question = this.get(id);
-    if(question != null) {
-       this.collection.deleteOne(
-        eq(new ObjectId(id))
-        );
-        logger.info("Deleted question " + id);
-        return true;
+    var result = this.collection.deleteOne(eq(new ObjectId(id)));
+
+    if (result.getDeletedCount() == 0) {
+      logger.warn("Failed to delete question {}", id);
+      return false;
+    }
+
+    this.version.incrementAndGet();
+    this.cache.invalidate(id);
+    logger.info("Deleted question {}", id);
+
+    return true;
+  }
+
+  /**
+   * Remove the questions with the given ids from the collection, in chunks of distinct ids.
+   * To report each id's outcome, the existing ids of a chunk are read first, projected on
+   * _id, and then deleted with a single deleteMany.
+   * Repeated ids are reported as removed once, as if removed in turn.
+   * @param ids  the questions ids
+   * @return The result for each id, in the same order.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  @Override
+  public List<WriteResult> removeAll(List<String> ids) {
+    if (ids == null)
+      throw new IllegalArgumentException("ids mustn't be null");
+
+    var distinct = new LinkedHashSet<ObjectId>(ids.size());
+    for (var id : ids)
+      if (id != null && ObjectId.isValid(id))
+        distinct.add(new ObjectId(id));
+
+    var valid = new ArrayList<>(distinct);
+    var removed = new HashSet<ObjectId>();
+    var deleted = 0L;
+    for (var start = 0; start < valid.size(); start += batchChunk) {
+      var chunk = valid.subList(start, Math.min(start + batchChunk, valid.size()));
+
+      var existing = new ArrayList<ObjectId>(chunk.size());
+      for (var document : this.collection
+        .withDocumentClass(Document.class)
+        .find(in("_id", chunk))
+        .projection(include("_id"))
+      )
+        existing.add(document.getObjectId("_id"));
+
+      if (existing.isEmpty())
+        continue;
+
+      deleted += this.collection.deleteMany(in("_id", existing)).getDeletedCount();
+      removed.addAll(existing);
     }
-    logger.warn("Failed to delete question " + id);
-    return false;
+
+    if (deleted > 0)
+      this.version.incrementAndGet();
+
+    for (var id : removed)
+      this.cache.invalidate(id.toHexString());
+
+    var results = new ArrayList<WriteResult>(ids.size());
+    for (var id : ids)
+      if (id == null || !ObjectId.isValid(id))
+        results.add(WriteResult.failed(id, "invalid id"));
+      else if (removed.remove(new ObjectId(id)))
+        results.add(WriteResult.ok(id));
+      else
+        results.add(WriteResult.failed(id, "no such question"));
+
+    logger.info("Deleted {} of {} questions of the batch", deleted, ids.size());
+
+    return results;
   }
 }
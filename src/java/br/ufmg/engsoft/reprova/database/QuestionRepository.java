@@ -0,0 +1,179 @@
+package br.ufmg.engsoft.reprova.database;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
+
+
+/**
+ * Storage for questions.
+ * Implemented by QuestionDAO, on mongodb, and by MemoryQuestionRepository, in process.
+ */
+public interface QuestionRepository {
+  /**
+   * The question store, from 'REPROVA_STORE' environment variable: 'mongo' or 'memory'.
+   * Defaults to 'mongo'.
+   */
+  String Store = Config.getInstance().get("REPROVA_STORE", "mongo");
+
+  /**
+   * Whether concurrent adds are grouped into batches, from 'REPROVA_COALESCE' environment
+   * variable. Defaults to false.
+   */
+  boolean Coalesce = Boolean.parseBoolean(Config.getInstance().get("REPROVA_COALESCE"));
+
+
+  /**
+   * Returns the application's repository: the configured store, metered.
+   * @throws IllegalArgumentException  if the store is unknown
+   */
+  static QuestionRepository getInstance() {
+    return MeteredQuestionRepository.getInstance();
+  }
+
+  /**
+   * Returns the configured store, coalescing adds if enabled.
+   * Called once, by MeteredQuestionRepository.getInstance.
+   * @throws IllegalArgumentException  if the store is unknown
+   */
+  static QuestionRepository getStore() {
+    QuestionRepository store;
+    switch (Store) {
+      case "mongo":
+        store = QuestionDAO.getInstance();
+        break;
+      case "memory":
+        store = MemoryQuestionRepository.getInstance();
+        break;
+      default:
+        throw new IllegalArgumentException("invalid store: " + Store);
+    }
+
+    return Coalesce
+      ? new CoalescingQuestionRepository(store, Metrics.getInstance())
+      : store;
+  }
+
+
+  /**
+   * Get the question with the given id.
+   * @param id  the question's id
+   * @return The question, or null if no such question.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  Question get(String id);
+
+  /**
+   * Get the questions with the given ids, at once.
+   * @param ids  the questions ids
+   * @return The question for each id, in the same order, or null if the id is invalid or
+   *         there's no such question.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  List<Question> getAll(List<String> ids);
+
+  /**
+   * The current version of the stored data.
+   * The version increases monotonically with each add, update and remove, so anything
+   * derived from the data may be reused while the version stays the same.
+   */
+  long version();
+
+  /**
+   * List all the questions that match the given non-null parameters.
+   * The question's statement is ommited.
+   * @param theme      the expected theme, or null
+   * @param pvt        the expected privacy, or null
+   * @return The matching questions, possibly empty.
+   */
+  Collection<Question> list(String theme, Boolean pvt);
+
+  /**
+   * List a page of the questions that match the given non-null parameters, in ascending
+   * id order. Pagination is keyset based: the next page starts right after the id of the
+   * last question of the current one.
+   * The question's statement is ommited.
+   * @param theme      the expected theme, or null
+   * @param pvt        the expected privacy, or null
+   * @param after      the id after which the page starts, or null for the first page
+   * @param limit      the maximum number of questions in the page, must be positive
+   * @return The questions in the page, possibly empty.
+   * @throws IllegalArgumentException  if limit isn't positive or after isn't a valid id
+   */
+  List<Question> list(String theme, Boolean pvt, String after, int limit);
+
+  /**
+   * Lazily stream a page of the questions that match the given non-null parameters.
+   * The stream must be closed to release its resources.
+   * @see #list(String, Boolean, String, int)
+   */
+  Stream<Question> stream(String theme, Boolean pvt, String after, int limit);
+
+  /**
+   * Lazily stream all the questions, statements included, in ascending id order.
+   * The stream must be closed to release its resources.
+   * @param batchSize  the number of questions fetched at a time, must be positive
+   * @throws IllegalArgumentException  if batchSize isn't positive
+   */
+  Stream<Question> export(int batchSize);
+
+  /**
+   * Adds the given question, generating its id.
+   * @param question  the question to be stored, without id
+   * @return Whether the question was successfully added.
+   * @throws IllegalArgumentException  if any parameter is null, or the question has an id
+   */
+  boolean add(Question question);
+
+  /**
+   * Adds the given questions. Each question is checked as in add, and failures don't stop
+   * the others.
+   * @param questions  the questions to be stored
+   * @return The result for each question, in the same order.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  List<WriteResult> addAll(List<Question> questions);
+
+  /**
+   * Updates the question with the given id to the question received.
+   * @param id  the question id
+   * @param question  the new question body
+   * @return Whether the question was successfully updated.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  boolean update(String id, Question question);
+
+  /**
+   * Updates only the fields touched by the given patch, in the question with the given id.
+   * @param id     the question id
+   * @param patch  the fields to set and remove
+   * @return Whether the question was successfully patched, false if there's no such
+   *         question or the patch doesn't apply to it.
+   * @throws IllegalArgumentException  if any parameter is null, or the patch is invalid
+   */
+  boolean patch(String id, QuestionPatch patch);
+
+  /**
+   * Remove the question with the given id.
+   * @param id  the question id
+   * @return Whether the given question was removed.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  boolean remove(String id);
+
+  /**
+   * Remove the questions with the given ids, at once.
+   * Each id is checked as in remove, and failures don't stop the others. Repeated ids are
+   * removed once, and reported as missing afterwards.
+   * @param ids  the questions ids
+   * @return The result for each id, in the same order: failed if the id is invalid or
+   *         there's no such question.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  List<WriteResult> removeAll(List<String> ids);
+}
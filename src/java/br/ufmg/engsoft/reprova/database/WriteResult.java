@@ -0,0 +1,49 @@
+package br.ufmg.engsoft.reprova.database;
+
+
+/**
+ * The outcome of writing a single question in a bulk operation.
+ */
+public class WriteResult {
+  /**
+   * The id of the question, or null if unknown.
+   */
+  public final String id;
+  /**
+   * Why the write failed, or null if it succeeded.
+   */
+  public final String error;
+
+
+  protected WriteResult(String id, String error) {
+    this.id = id;
+    this.error = error;
+  }
+
+
+  /**
+   * A successful write.
+   */
+  public static WriteResult ok(String id) {
+    return new WriteResult(id, null);
+  }
+
+  /**
+   * A failed write.
+   * @param error  the reason, mustn't be null
+   */
+  public static WriteResult failed(String id, String error) {
+    if (error == null)
+      throw new IllegalArgumentException("error mustn't be null");
+
+    return new WriteResult(id, error);
+  }
+
+
+  /**
+   * Whether the write succeeded.
+   */
+  public boolean isOk() {
+    return this.error == null;
+  }
+}
@@ -0,0 +1,351 @@
+package br.ufmg.engsoft.reprova.database.codecs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.Semester;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
+
+
+/**
+ * Bson codec for Question.
+ * Encodes and decodes questions directly from the wire format, without an intermediate
+ * Document nor Json representation.
+ * The document format is:
+ * {
+ *   _id: ObjectId,
+ *   type: "open" | "multiple_choice",
+ *   theme: String,
+ *   description: String,
+ *   statement: String,
+ *   record: { "year/ref": { class: Double } },
+ *   pvt: Boolean,
+ *   optCount: String,          // multiple choice only
+ *   options: [ String ]        // multiple choice only
+ * }
+ */
+public class QuestionCodec implements CollectibleCodec<Question> {
+  /**
+   * The type tags, as accepted by QuestionBuilder.
+   */
+  protected static final String Open = "open";
+  protected static final String MultipleChoice = "multiple_choice";
+
+  /**
+   * Tracer, for the decode spans.
+   */
+  protected static final Tracer tracer = Tracer.getInstance();
+
+
+  @Override
+  public Class<Question> getEncoderClass() {
+    return Question.class;
+  }
+
+
+  @Override
+  public void encode(BsonWriter writer, Question question, EncoderContext context) {
+    writer.writeStartDocument();
+
+    if (question.id != null)
+      writer.writeObjectId("_id", new ObjectId(question.id));
+
+    var multipleChoice = question instanceof MultipleChoiceQuestion;
+
+    writer.writeString("type", multipleChoice ? MultipleChoice : Open);
+    writeString(writer, "theme", question.theme);
+    writeString(writer, "description", question.description);
+    writeString(writer, "statement", question.statement);
+
+    writer.writeStartDocument("record");
+    for (var semester : question.record.entrySet()) {
+      writer.writeStartDocument(semester.getKey().toString());
+      for (var grade : semester.getValue().entrySet())
+        if (grade.getValue() == null)
+          writer.writeNull(grade.getKey());
+        else
+          writer.writeDouble(grade.getKey(), grade.getValue());
+      writer.writeEndDocument();
+    }
+    writer.writeEndDocument();
+
+    writer.writeBoolean("pvt", question.pvt);
+
+    if (multipleChoice) {
+      var multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+
+      writeString(writer, "optCount", multipleChoiceQuestion.optCount);
+
+      if (multipleChoiceQuestion.options == null)
+        writer.writeNull("options");
+      else {
+        writer.writeStartArray("options");
+        for (var option : multipleChoiceQuestion.options)
+          if (option == null)
+            writer.writeNull();
+          else
+            writer.writeString(option);
+        writer.writeEndArray();
+      }
+    }
+
+    writer.writeEndDocument();
+  }
+
+
+  /**
+   * Decode a question.
+   * Documents stored before the type tag existed are multiple choice if they have options.
+   * @throws IllegalArgumentException  if the document is an invalid Question
+   */
+  @Override
+  public Question decode(BsonReader reader, DecoderContext context) {
+    var span = tracer.start("codec.decode");
+    try {
+      return this.read(reader);
+    }
+    finally {
+      span.close();
+    }
+  }
+
+  protected Question read(BsonReader reader) {
+    var builder = new QuestionBuilder();
+    String type = null;
+    List<String> options = null;
+
+    reader.readStartDocument();
+
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      var name = reader.readName();
+
+      switch (name) {
+        case "_id":
+          builder.id(reader.readObjectId().toHexString());
+          break;
+
+        case "type":
+          type = readString(reader);
+          break;
+
+        case "theme":
+          builder.theme(readString(reader));
+          break;
+
+        case "description":
+          builder.description(readString(reader));
+          break;
+
+        case "statement":
+          builder.statement(readString(reader));
+          break;
+
+        case "record":
+          builder.record(readRecord(reader));
+          break;
+
+        case "pvt":
+          builder.pvt(reader.readBoolean());
+          break;
+
+        case "optCount":
+          builder.optCount(readString(reader));
+          break;
+
+        case "options":
+          options = readOptions(reader);
+          builder.options(options);
+          break;
+
+        default:
+          reader.skipValue();
+      }
+    }
+
+    reader.readEndDocument();
+
+    if (type == null)
+      type = options == null ? Open : MultipleChoice;
+
+    return builder
+      .type(type)
+      .build();
+  }
+
+
+  @Override
+  public boolean documentHasId(Question question) {
+    return question.id != null;
+  }
+
+
+  @Override
+  public BsonValue getDocumentId(Question question) {
+    if (question.id == null)
+      throw new IllegalStateException("question has no id");
+
+    return new BsonObjectId(new ObjectId(question.id));
+  }
+
+
+  /**
+   * Questions are immutable, so a copy with a fresh id is returned when there is no id.
+   */
+  @Override
+  public Question generateIdIfAbsentFromDocument(Question question) {
+    return question.id == null
+      ? withId(question, new ObjectId().toHexString())
+      : question;
+  }
+
+
+  /**
+   * Copy the given question, replacing its id.
+   * @param question  the question, mustn't be null
+   * @param id        the new id, or null
+   */
+  public static Question withId(Question question, String id) {
+    var builder = new QuestionBuilder()
+      .id(id)
+      .theme(question.theme)
+      .description(question.description)
+      .statement(question.statement)
+      .record(question.record)
+      .pvt(question.pvt)
+      .type(Open);
+
+    if (question instanceof MultipleChoiceQuestion) {
+      var multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+      builder
+        .type(MultipleChoice)
+        .optCount(multipleChoiceQuestion.optCount)
+        .options(multipleChoiceQuestion.options);
+    }
+
+    return builder.build();
+  }
+
+
+
+  /**
+   * Write a nullable string.
+   */
+  protected static void writeString(BsonWriter writer, String name, String value) {
+    if (value == null)
+      writer.writeNull(name);
+    else
+      writer.writeString(name, value);
+  }
+
+
+  /**
+   * Read a nullable string. Numbers are converted to strings, as Gson would.
+   */
+  protected static String readString(BsonReader reader) {
+    switch (reader.getCurrentBsonType()) {
+      case NULL:
+        reader.readNull();
+        return null;
+      case INT32:
+        return String.valueOf(reader.readInt32());
+      case INT64:
+        return String.valueOf(reader.readInt64());
+      case DOUBLE:
+        return String.valueOf(reader.readDouble());
+      default:
+        return reader.readString();
+    }
+  }
+
+
+  /**
+   * Read a grade, which may have been stored in any numeric type.
+   */
+  protected static Float readGrade(BsonReader reader) {
+    switch (reader.getCurrentBsonType()) {
+      case NULL:
+        reader.readNull();
+        return null;
+      case INT32:
+        return (float) reader.readInt32();
+      case INT64:
+        return (float) reader.readInt64();
+      case DECIMAL128:
+        return reader.readDecimal128().bigDecimalValue().floatValue();
+      default:
+        return (float) reader.readDouble();
+    }
+  }
+
+
+  /**
+   * Read the record subdocument.
+   * @throws IllegalArgumentException  if a semester is invalid
+   */
+  protected static Map<Semester, Map<String, Float>> readRecord(BsonReader reader) {
+    if (reader.getCurrentBsonType() == BsonType.NULL) {
+      reader.readNull();
+      return null;
+    }
+
+    var record = new HashMap<Semester, Map<String, Float>>();
+
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      var semester = Semester.parse(reader.readName());
+
+      if (reader.getCurrentBsonType() == BsonType.NULL) {
+        reader.readNull();
+        record.put(semester, null); // rejected by the builder.
+        continue;
+      }
+
+      var grades = new HashMap<String, Float>();
+
+      reader.readStartDocument();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT)
+        grades.put(reader.readName(), readGrade(reader));
+      reader.readEndDocument();
+
+      record.put(semester, grades);
+    }
+    reader.readEndDocument();
+
+    return record;
+  }
+
+
+  /**
+   * Read the options array.
+   */
+  protected static List<String> readOptions(BsonReader reader) {
+    if (reader.getCurrentBsonType() == BsonType.NULL) {
+      reader.readNull();
+      return null;
+    }
+
+    var options = new ArrayList<String>();
+
+    reader.readStartArray();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT)
+      options.add(readString(reader));
+    reader.readEndArray();
+
+    return options;
+  }
+}
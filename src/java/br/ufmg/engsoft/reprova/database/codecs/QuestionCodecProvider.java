@@ -0,0 +1,29 @@
+package br.ufmg.engsoft.reprova.database.codecs;
+
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import br.ufmg.engsoft.reprova.model.Question;
+
+
+/**
+ * Codec provider for Question and its subclasses.
+ * The driver looks up the codec by the runtime class when encoding, so a single codec
+ * must serve OpenQuestion and MultipleChoiceQuestion as well.
+ */
+public class QuestionCodecProvider implements CodecProvider {
+  /**
+   * The codec instance. Codecs are stateless, hence shared.
+   */
+  protected final QuestionCodec codec = new QuestionCodec();
+
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> Codec<T> get(Class<T> cls, CodecRegistry registry) {
+    return Question.class.isAssignableFrom(cls)
+      ? (Codec<T>) this.codec
+      : null;
+  }
+}
@@ -0,0 +1,47 @@
+package br.ufmg.engsoft.reprova.logging;
+
+import java.util.function.Supplier;
+
+
+/**
+ * Lazy log arguments: formatted only if the message is logged.
+ *
+ *   logger.debug("Received questions post: {}", Lazy.abbreviate(body));
+ */
+public final class Lazy {
+  private Lazy() { }
+
+  /**
+   * Maximum length of payloads in messages.
+   */
+  public static final int MaxPayload = 1000;
+
+
+  /**
+   * A log argument formatted by the given supplier.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public static Object of(Supplier<?> supplier) {
+    if (supplier == null)
+      throw new IllegalArgumentException("supplier mustn't be null");
+
+    return new Object() {
+      @Override
+      public String toString() {
+        return String.valueOf(supplier.get());
+      }
+    };
+  }
+
+
+  /**
+   * A payload, abbreviated to MaxPayload characters.
+   */
+  public static Object abbreviate(String payload) {
+    return of(() ->
+      payload == null || payload.length() <= MaxPayload
+        ? payload
+        : payload.substring(0, MaxPayload) + "... (" + payload.length() + " chars)"
+    );
+  }
+}
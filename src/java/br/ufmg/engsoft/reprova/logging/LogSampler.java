@@ -0,0 +1,135 @@
+package br.ufmg.engsoft.reprova.logging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import br.ufmg.engsoft.reprova.config.Config;
+
+
+/**
+ * Rate limit for a high volume log site.
+ * Lets through up to a number of messages per second, and reports how many were suppressed
+ * once the next second starts. Doesn't lock, the limit is approximate under contention:
+ *
+ *   protected static final LogSampler missing = new LogSampler(logger, Level.INFO, "No such question");
+ *   ...
+ *   if (missing.sample())
+ *     logger.info("No such question {}", id);
+ */
+public class LogSampler {
+  /**
+   * Messages per second per site, from 'REPROVA_LOG_SAMPLE' environment variable.
+   * Defaults to 10. Zero disables sampling.
+   */
+  protected static final int defaultLimit = Integer.parseInt(
+    Config.getInstance().get("REPROVA_LOG_SAMPLE", "10")
+  );
+
+  /**
+   * Logger and level of the site.
+   */
+  protected final Logger logger;
+  protected final Level level;
+
+  /**
+   * Name of the site, for the suppression reports.
+   */
+  protected final String site;
+
+  /**
+   * Messages per second, zero for unlimited.
+   */
+  protected final int limit;
+
+  /**
+   * Current second, and messages sampled in it.
+   */
+  protected final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+  protected final AtomicInteger sampled = new AtomicInteger();
+
+  /**
+   * Messages suppressed since the last report.
+   */
+  protected final LongAdder suppressed = new LongAdder();
+
+
+
+  /**
+   * Sampler with the configured limit.
+   * @see #LogSampler(Logger, Level, String, int)
+   */
+  public LogSampler(Logger logger, Level level, String site) {
+    this(logger, level, site, defaultLimit);
+  }
+
+  /**
+   * Basic constructor.
+   * @param logger  the site's logger
+   * @param level   the site's level
+   * @param site    the site name, for the suppression reports
+   * @param limit   the messages per second, zero for unlimited
+   * @throws IllegalArgumentException  if any parameter is null, or limit is negative
+   */
+  public LogSampler(Logger logger, Level level, String site, int limit) {
+    if (logger == null)
+      throw new IllegalArgumentException("logger mustn't be null");
+    if (level == null)
+      throw new IllegalArgumentException("level mustn't be null");
+    if (site == null)
+      throw new IllegalArgumentException("site mustn't be null");
+    if (limit < 0)
+      throw new IllegalArgumentException("limit mustn't be negative");
+
+    this.logger = logger;
+    this.level = level;
+    this.site = site;
+    this.limit = limit;
+  }
+
+
+  /**
+   * Whether the site's level is enabled in its logger.
+   */
+  public boolean isEnabled() {
+    switch (this.level) {
+      case ERROR: return this.logger.isErrorEnabled();
+      case WARN: return this.logger.isWarnEnabled();
+      case INFO: return this.logger.isInfoEnabled();
+      case DEBUG: return this.logger.isDebugEnabled();
+      default: return this.logger.isTraceEnabled();
+    }
+  }
+
+
+  /**
+   * Whether the next message should be logged: the level is enabled, and the limit for the
+   * current second isn't reached.
+   */
+  public boolean sample() {
+    if (!this.isEnabled())
+      return false;
+
+    if (this.limit == 0)
+      return true;
+
+    var now = System.nanoTime() / 1_000_000_000L;
+    var current = this.second.get();
+    if (now != current && this.second.compareAndSet(current, now)) {
+      this.sampled.set(0);
+
+      var dropped = this.suppressed.sumThenReset();
+      if (dropped > 0)
+        this.logger.info("Suppressed {} '{}' messages", dropped, this.site);
+    }
+
+    if (this.sampled.incrementAndGet() <= this.limit)
+      return true;
+
+    this.suppressed.increment();
+    return false;
+  }
+}
@@ -0,0 +1,217 @@
+package br.ufmg.engsoft.reprova.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock free histogram of non negative longs, with log linear buckets as in HdrHistogram.
+ * Each power of two range is split in four buckets, so values are kept within 25%. Buckets
+ * are striped counters (LongAdder), so concurrent records don't contend.
+ * Exposed in Prometheus format with power of two bucket bounds, scaled to the exposed unit.
+ */
+public class Histogram {
+  /**
+   * Sub buckets per power of two, as bits.
+   */
+  protected static final int SubBits = 2;
+  protected static final int SubCount = 1 << SubBits;
+
+  /**
+   * Number of buckets, enough for any non negative long.
+   */
+  protected static final int Buckets = index(Long.MAX_VALUE) + 1;
+
+  /**
+   * The bucket counts.
+   */
+  protected final LongAdder[] counts = new LongAdder[Buckets];
+
+  /**
+   * Sum of the recorded values.
+   */
+  protected final LongAdder sum = new LongAdder();
+
+  /**
+   * Divisor from recorded values to the exposed unit, e.g. 1e9 for nanoseconds to seconds.
+   */
+  protected final double scale;
+
+  /**
+   * Exponents of the smallest and largest exposed bucket bounds, as powers of two.
+   */
+  protected final int minExponent;
+  protected final int maxExponent;
+
+
+
+  /**
+   * Basic constructor.
+   * @param scale        divisor from recorded values to the exposed unit
+   * @param minExponent  smallest exposed bound, as a power of two of the recorded unit
+   * @param maxExponent  largest exposed bound, as a power of two of the recorded unit
+   * @throws IllegalArgumentException  if scale isn't positive or the bounds are invalid
+   */
+  public Histogram(double scale, int minExponent, int maxExponent) {
+    if (scale <= 0)
+      throw new IllegalArgumentException("scale must be positive");
+
+    if (minExponent < SubBits + 1 || maxExponent > 62 || minExponent > maxExponent)
+      throw new IllegalArgumentException("invalid exponents");
+
+    for (var i = 0; i < Buckets; i++)
+      this.counts[i] = new LongAdder();
+
+    this.scale = scale;
+    this.minExponent = minExponent;
+    this.maxExponent = maxExponent;
+  }
+
+  /**
+   * Histogram of nanosecond durations, exposed in seconds, from about 1us to 34s.
+   */
+  public static Histogram durations() {
+    return new Histogram(1e9, 10, 35);
+  }
+
+  /**
+   * Histogram of sizes, from 8 to about a million.
+   */
+  public static Histogram sizes() {
+    return new Histogram(1, 3, 20);
+  }
+
+
+  /**
+   * The bucket of the given value. Buckets include their upper bound, as Prometheus' le
+   * does, so a value is bucketed as its predecessor would be in half open buckets.
+   * Values up to 2 * SubCount have a bucket each, larger ones share SubCount buckets per
+   * power of two.
+   */
+  protected static int index(long value) {
+    value = Math.max(value, 1) - 1;
+
+    if (value < 2 * SubCount)
+      return (int) Math.max(value, 0);
+
+    var exponent = 63 - Long.numberOfLeadingZeros(value);
+    var shift = exponent - SubBits;
+    var sub = (int) (value >>> shift) & (SubCount - 1);
+
+    return shift * SubCount + sub + SubCount;
+  }
+
+  /**
+   * The largest value in the given bucket.
+   */
+  protected static long upper(int index) {
+    if (index < 2 * SubCount)
+      return index + 1;
+
+    var shift = index / SubCount - 1;
+    var sub = index % SubCount;
+    var upper = (long) (SubCount + sub + 1) << shift;
+
+    return upper > 0 ? upper : Long.MAX_VALUE; // the last bucket overflows.
+  }
+
+
+  /**
+   * Record a value. Negative values count as zero, and share the bucket of 1.
+   */
+  public void record(long value) {
+    this.counts[index(value)].increment();
+    this.sum.add(Math.max(value, 0));
+  }
+
+  /**
+   * Record the time elapsed since the given System.nanoTime().
+   */
+  public void recordSince(long start) {
+    this.record(System.nanoTime() - start);
+  }
+
+
+  /**
+   * Number of recorded values.
+   */
+  public long count() {
+    var count = 0L;
+    for (var bucket : this.counts)
+      count += bucket.sum();
+    return count;
+  }
+
+  /**
+   * Sum of the recorded values.
+   */
+  public long sum() {
+    return this.sum.sum();
+  }
+
+  /**
+   * Upper bound of the bucket holding the given quantile, or 0 if empty.
+   * @param quantile  the quantile, between 0 and 1
+   */
+  public long valueAt(double quantile) {
+    var snapshot = this.snapshot();
+
+    var count = 0L;
+    for (var bucket : snapshot)
+      count += bucket;
+
+    if (count == 0)
+      return 0;
+
+    var rank = Math.max(1, (long) Math.ceil(quantile * count));
+    var seen = 0L;
+    for (var i = 0; i < Buckets; i++) {
+      seen += snapshot[i];
+      if (seen >= rank)
+        return upper(i);
+    }
+
+    return upper(Buckets - 1);
+  }
+
+
+  protected long[] snapshot() {
+    var snapshot = new long[Buckets];
+    for (var i = 0; i < Buckets; i++)
+      snapshot[i] = this.counts[i].sum();
+    return snapshot;
+  }
+
+
+  /**
+   * Write the histogram's series in Prometheus text format.
+   * @param name    the metric name
+   * @param labels  the series labels, formatted, possibly empty
+   * @throws IOException  if the writer fails
+   */
+  public void write(Writer writer, String name, String labels) throws IOException {
+    var snapshot = this.snapshot();
+    var separator = labels.isEmpty() ? "" : ",";
+
+    var cumulative = 0L;
+    var bucket = 0;
+    for (var exponent = this.minExponent; exponent <= this.maxExponent; exponent++) {
+      var bound = 1L << exponent;
+      while (bucket < Buckets && upper(bucket) <= bound)
+        cumulative += snapshot[bucket++];
+
+      writer.write(
+        name + "_bucket{" + labels + separator + "le=\"" + (bound / this.scale) + "\"} "
+          + cumulative + "\n"
+      );
+    }
+
+    while (bucket < Buckets)
+      cumulative += snapshot[bucket++];
+
+    writer.write(name + "_bucket{" + labels + separator + "le=\"+Inf\"} " + cumulative + "\n");
+    writer.write(name + "_sum{" + labels + "} " + (this.sum() / this.scale) + "\n");
+    writer.write(name + "_count{" + labels + "} " + cumulative + "\n");
+  }
+}
@@ -0,0 +1,66 @@
+package br.ufmg.engsoft.reprova.metrics;
+
+import java.lang.management.ManagementFactory;
+
+
+/**
+ * JVM gauges: heap and non heap memory, garbage collections and threads.
+ * This class is static.
+ */
+public class JvmMetrics {
+  /**
+   * Static class.
+   */
+  protected JvmMetrics() { }
+
+
+  /**
+   * Register the JVM gauges in the given registry.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public static void register(Metrics metrics) {
+    if (metrics == null)
+      throw new IllegalArgumentException("metrics mustn't be null");
+
+    var memory = ManagementFactory.getMemoryMXBean();
+
+    metrics.gauge(
+      "jvm_memory_bytes_used", "Used memory.", Metrics.labels("area", "heap"),
+      () -> memory.getHeapMemoryUsage().getUsed()
+    );
+    metrics.gauge(
+      "jvm_memory_bytes_used", "Used memory.", Metrics.labels("area", "nonheap"),
+      () -> memory.getNonHeapMemoryUsage().getUsed()
+    );
+    metrics.gauge(
+      "jvm_memory_bytes_committed", "Committed memory.", Metrics.labels("area", "heap"),
+      () -> memory.getHeapMemoryUsage().getCommitted()
+    );
+    metrics.gauge(
+      "jvm_memory_bytes_committed", "Committed memory.", Metrics.labels("area", "nonheap"),
+      () -> memory.getNonHeapMemoryUsage().getCommitted()
+    );
+    metrics.gauge(
+      "jvm_memory_bytes_max", "Maximum memory, -1 if undefined.", Metrics.labels("area", "heap"),
+      () -> memory.getHeapMemoryUsage().getMax()
+    );
+
+    for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      var labels = Metrics.labels("gc", gc.getName());
+
+      metrics.counter(
+        "jvm_gc_collections_total", "Garbage collections.", labels,
+        gc::getCollectionCount
+      );
+      metrics.counter(
+        "jvm_gc_collection_seconds_total", "Time spent in garbage collections.", labels,
+        () -> gc.getCollectionTime() / 1e3
+      );
+    }
+
+    var threads = ManagementFactory.getThreadMXBean();
+
+    metrics.gauge("jvm_threads_live", "Live threads.", "", threads::getThreadCount);
+    metrics.gauge("jvm_threads_daemon", "Live daemon threads.", "", threads::getDaemonThreadCount);
+  }
+}
@@ -0,0 +1,187 @@
+package br.ufmg.engsoft.reprova.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+
+/**
+ * Registry of the application's metrics, exposed in Prometheus text format.
+ * Metrics are grouped in families by name, and each family has a series per label set.
+ * Series are created on first use, and looked up without locking afterwards. Recording is
+ * up to the metric: histograms and counters are striped, so hot paths don't contend.
+ */
+public final class Metrics {
+  /**
+   * Singleton instance.
+   */
+  private static Metrics instance;
+
+  /**
+   * A metric family: its metadata and series, by formatted labels.
+   */
+  protected static final class Family {
+    final String help;
+    final String type;
+    final Map<String, Object> series = new ConcurrentHashMap<>();
+
+    Family(String help, String type) {
+      this.help = help;
+      this.type = type;
+    }
+  }
+
+  /**
+   * Families, by name.
+   */
+  protected final Map<String, Family> families = new ConcurrentHashMap<>();
+
+
+
+  /**
+   * Create an empty registry.
+   */
+  public Metrics() { }
+
+  /**
+   * Returns the application's registry, with the JVM gauges registered.
+   */
+  public static synchronized Metrics getInstance() {
+    if (instance == null) {
+      instance = new Metrics();
+      JvmMetrics.register(instance);
+    }
+
+    return instance;
+  }
+
+
+  /**
+   * Format the given label names and values, escaping the values.
+   * @param namesAndValues  alternating label names and values
+   * @throws IllegalArgumentException  if the number of arguments is odd
+   */
+  public static String labels(String... namesAndValues) {
+    if (namesAndValues.length % 2 != 0)
+      throw new IllegalArgumentException("labels must be name and value pairs");
+
+    var labels = new StringBuilder();
+    for (var i = 0; i < namesAndValues.length; i += 2) {
+      if (i > 0)
+        labels.append(',');
+
+      labels
+        .append(namesAndValues[i])
+        .append("=\"")
+        .append(
+          String.valueOf(namesAndValues[i + 1])
+            .replace("\\", "\\\\")
+            .replace("\"", "\\\"")
+            .replace("\n", "\\n")
+        )
+        .append('"');
+    }
+
+    return labels.toString();
+  }
+
+
+  /**
+   * Get the series of the given family, creating them if absent.
+   * @throws IllegalArgumentException  if the family exists with another type
+   */
+  protected Object series(
+    String name,
+    String help,
+    String type,
+    String labels,
+    Supplier<?> factory
+  ) {
+    var family = this.families.get(name); // doesn't allocate, unlike computeIfAbsent.
+    if (family == null)
+      family = this.families.computeIfAbsent(name, key -> new Family(help, type));
+
+    if (!family.type.equals(type))
+      throw new IllegalArgumentException(name + " is a " + family.type);
+
+    var series = family.series.get(labels);
+    return series != null ? series : family.series.computeIfAbsent(labels, key -> factory.get());
+  }
+
+
+  /**
+   * Get a histogram series, creating it with the given factory if absent.
+   * @param name     the metric name
+   * @param help     the metric description
+   * @param labels   the formatted labels, possibly empty
+   * @param factory  creates the histogram
+   */
+  public Histogram histogram(String name, String help, String labels, Supplier<Histogram> factory) {
+    return (Histogram) this.series(name, help, "histogram", labels, factory);
+  }
+
+  /**
+   * Get a counter series, creating it if absent.
+   * @param name     the metric name, ending in '_total'
+   * @param help     the metric description
+   * @param labels   the formatted labels, possibly empty
+   */
+  public LongAdder counter(String name, String help, String labels) {
+    return (LongAdder) this.series(name, help, "counter", labels, LongAdder::new);
+  }
+
+  /**
+   * Register a gauge series, read when the metrics are written.
+   * @param name     the metric name
+   * @param help     the metric description
+   * @param labels   the formatted labels, possibly empty
+   * @param value    reads the gauge
+   */
+  public void gauge(String name, String help, String labels, DoubleSupplier value) {
+    this.series(name, help, "gauge", labels, () -> value);
+  }
+
+  /**
+   * Register a counter series whose value is read when the metrics are written, for
+   * counts kept elsewhere.
+   * @see #gauge(String, String, String, DoubleSupplier)
+   */
+  public void counter(String name, String help, String labels, DoubleSupplier value) {
+    this.series(name, help, "counter", labels, () -> value);
+  }
+
+
+  /**
+   * Write all the metrics in Prometheus text format, sorted by name and labels.
+   * @throws IOException  if the writer fails
+   */
+  public void write(Writer writer) throws IOException {
+    for (var family : new TreeMap<>(this.families).entrySet()) {
+      var name = family.getKey();
+
+      writer.write("# HELP " + name + " " + family.getValue().help + "\n");
+      writer.write("# TYPE " + name + " " + family.getValue().type + "\n");
+
+      for (var series : new TreeMap<>(family.getValue().series).entrySet()) {
+        var labels = series.getKey();
+        var metric = series.getValue();
+
+        if (metric instanceof Histogram) {
+          ((Histogram) metric).write(writer, name, labels);
+          continue;
+        }
+
+        var value = metric instanceof LongAdder
+          ? ((LongAdder) metric).sum()
+          : ((DoubleSupplier) metric).getAsDouble();
+
+        writer.write(name + (labels.isEmpty() ? "" : "{" + labels + "}") + " " + value + "\n");
+      }
+    }
+  }
+}
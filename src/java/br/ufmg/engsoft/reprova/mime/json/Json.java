@@ -1,113 +1,471 @@
 package br.ufmg.engsoft.reprova.mime.json;
 
-import java.lang.reflect.Type;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import br.ufmg.engsoft.reprova.metrics.Histogram;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.Question;
 import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
 import br.ufmg.engsoft.reprova.model.Semester;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
 
 
 /**
  * Json format for Reprova's types.
+ * The model types are read and written by streaming type adapters, without reflection.
+ * Gson instances are thread safe, so a single formatter may be shared: see getInstance.
+ * Parsing and rendering are timed in the application's metrics, and traced.
  */
 public class Json {
   /**
-   * Deserializer for Semester.
+   * Type adapter for Semester.
    */
-  protected static class SemesterDeserializer implements JsonDeserializer<Semester> {
+  protected static class SemesterAdapter extends TypeAdapter<Semester> {
     /**
      * The semester format is:
      * "year/ref"
      * Where ref is 1 or 2.
      */
     @Override
-    public Semester deserialize(
-      JsonElement json,
-      Type typeOfT,
-      JsonDeserializationContext context
-    ) {
-      String[] values = json.getAsString().split("/");
+    public Semester read(JsonReader reader) throws IOException {
+      return parseSemester(reader.nextString());
+    }
+
+    @Override
+    public void write(JsonWriter writer, Semester semester) throws IOException {
+      writer.value(semester.toString());
+    }
+  }
+
+
+  /**
+   * Type adapter for Question.Builder.
+   * Builders are only parsed, never rendered.
+   */
+  protected static class QuestionBuilderAdapter extends TypeAdapter<QuestionBuilder> {
+    @Override
+    public QuestionBuilder read(JsonReader reader) throws IOException {
+      var questionBuilder = new QuestionBuilder();
+
+      reader.beginObject();
+
+      while (reader.hasNext()) {
+        var name = reader.nextName();
+
+        if (reader.peek() == JsonToken.NULL) { // Null fields keep the builder's defaults.
+          reader.nextNull();
+          continue;
+        }
+
+        switch (name) {
+          case "id":
+            questionBuilder.id(reader.nextString());
+            break;
+
+          case "_id": // Mongo's id property doesn't match Question.id.
+            questionBuilder.id(readObjectId(reader));
+            break;
+
+          case "theme":
+            questionBuilder.theme(reader.nextString());
+            break;
+
+          case "description":
+            questionBuilder.description(reader.nextString());
+            break;
+
+          case "statement":
+            questionBuilder.statement(reader.nextString());
+            break;
+
+          case "record":
+            questionBuilder.record(readRecord(reader));
+            break;
+
+          case "pvt":
+            questionBuilder.pvt(
+              reader.peek() == JsonToken.STRING // Gson accepts quoted booleans.
+                ? Boolean.parseBoolean(reader.nextString())
+                : reader.nextBoolean()
+            );
+            break;
+
+          case "type":
+            questionBuilder.type(reader.nextString());
+            break;
 
-      if (values.length != 2)
-        throw new JsonParseException("invalid semester");
+          case "optCount":
+            questionBuilder.optCount(reader.nextString());
+            break;
 
-      var year = Integer.parseInt(values[0]);
+          case "options":
+            questionBuilder.options(readOptions(reader));
+            break;
 
-      var ref = Semester.Reference.fromInt(Integer.parseInt(values[1]));
+          default:
+            reader.skipValue();
+        }
+      }
 
-      return new Semester(year, ref);
+      reader.endObject();
+
+      return questionBuilder;
+    }
+
+    @Override
+    public void write(JsonWriter writer, QuestionBuilder questionBuilder) {
+      throw new UnsupportedOperationException("QuestionBuilder can't be rendered");
     }
   }
 
 
   /**
-   * Deserializer for Question.Builder.
+   * Type adapter for QuestionPatch.
+   * Absent fields are left untouched, and a null statement is removed. Patches are only
+   * parsed, never rendered.
    */
-  protected static class QuestionBuilderDeserializer
-    implements JsonDeserializer<QuestionBuilder>
-  {
+  protected static class QuestionPatchAdapter extends TypeAdapter<QuestionPatch> {
     @Override
-    public QuestionBuilder deserialize(
-      JsonElement json,
-      Type typeOfT,
-      JsonDeserializationContext context
-    ) {
-      var parserBuilder = new GsonBuilder();
-
-      parserBuilder.registerTypeAdapter( // Question has a Semester field.
-        Semester.class,
-        new SemesterDeserializer()
-      );
-
-      var questionBuilder = parserBuilder
-        .create()
-        .fromJson(
-          json.getAsJsonObject(),
-          QuestionBuilder.class
-        );
-
-      // Mongo's id property doesn't match Question.id:
-      var nemId = json.getAsJsonObject().get("nemId");
-
-      if (nemId != null)
-        questionBuilder.id(
-          nemId.getAsJsonObject()
-            .get("$oid")
-            .getAsString()
-        );
+    public QuestionPatch read(JsonReader reader) throws IOException {
+      var patch = new QuestionPatch();
 
-      return questionBuilder;
+      reader.beginObject();
+
+      while (reader.hasNext()) {
+        var name = reader.nextName();
+        var isNull = reader.peek() == JsonToken.NULL;
+
+        switch (name) {
+          case "id":
+          case "_id":
+          case "type":
+            throw new JsonParseException(name + " can't be patched");
+
+          case "theme":
+            patch.theme(isNull ? null : reader.nextString());
+            break;
+
+          case "description":
+            patch.description(isNull ? null : reader.nextString());
+            break;
+
+          case "statement":
+            patch.statement(isNull ? null : reader.nextString());
+            break;
+
+          case "record":
+            patch.record(isNull ? null : readRecord(reader));
+            break;
+
+          case "pvt":
+            if (isNull)
+              throw new JsonParseException("pvt mustn't be null");
+            patch.pvt(
+              reader.peek() == JsonToken.STRING // Gson accepts quoted booleans.
+                ? Boolean.parseBoolean(reader.nextString())
+                : reader.nextBoolean()
+            );
+            break;
+
+          case "optCount":
+            patch.optCount(isNull ? null : reader.nextString());
+            break;
+
+          case "options":
+            patch.options(isNull ? null : readOptions(reader));
+            break;
+
+          default:
+            reader.skipValue();
+            continue;
+        }
+
+        if (isNull)
+          reader.nextNull();
+      }
+
+      reader.endObject();
+
+      return patch;
+    }
+
+    @Override
+    public void write(JsonWriter writer, QuestionPatch patch) {
+      throw new UnsupportedOperationException("QuestionPatch can't be rendered");
     }
   }
 
 
+  /**
+   * Type adapter for Question and its subclasses.
+   * Null fields are omitted, as Gson does by default. The type tag is always written, as in
+   * QuestionCodec, so that rendered questions parse back to the same type.
+   */
+  protected static class QuestionAdapter extends TypeAdapter<Question> {
+    /**
+     * The type tags, as accepted by QuestionBuilder.
+     */
+    protected static final String Open = "open";
+    protected static final String MultipleChoice = "multiple_choice";
+
+    protected final QuestionBuilderAdapter builderAdapter = new QuestionBuilderAdapter();
+
+    @Override
+    public Question read(JsonReader reader) throws IOException {
+      try {
+        return builderAdapter
+          .read(reader)
+          .build();
+      }
+      catch (IllegalArgumentException e) {
+        throw new JsonParseException(e);
+      }
+    }
+
+    @Override
+    public void write(JsonWriter writer, Question question) throws IOException {
+      writer.beginObject();
+
+      var multipleChoice = question instanceof MultipleChoiceQuestion;
+
+      writer.name("type").value(multipleChoice ? MultipleChoice : Open);
+
+      if (multipleChoice) {
+        var multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+
+        writer.name("optCount").value(multipleChoiceQuestion.optCount);
+
+        if (multipleChoiceQuestion.options != null) {
+          writer.name("options");
+          writer.beginArray();
+          for (var option : multipleChoiceQuestion.options)
+            writer.value(option);
+          writer.endArray();
+        }
+      }
+
+      writer.name("id").value(question.id);
+      writer.name("theme").value(question.theme);
+      writer.name("description").value(question.description);
+      writer.name("statement").value(question.statement);
+
+      if (question.record != null) {
+        writer.name("record");
+        writer.beginObject();
+        for (var semester : question.record.entrySet()) {
+          writer.name(semester.getKey().toString());
+
+          if (semester.getValue() == null) {
+            writer.nullValue();
+            continue;
+          }
+
+          writer.beginObject();
+          for (var grade : semester.getValue().entrySet())
+            writer.name(grade.getKey()).value(grade.getValue());
+          writer.endObject();
+        }
+        writer.endObject();
+      }
+
+      writer.name("pvt").value(question.pvt);
+
+      writer.endObject();
+    }
+  }
+
+
+
+  /**
+   * Parse a semester.
+   * @throws JsonParseException  if the semester is invalid
+   */
+  protected static Semester parseSemester(String semester) {
+    try {
+      return Semester.parse(semester);
+    }
+    catch (IllegalArgumentException e) {
+      throw new JsonParseException("invalid semester", e);
+    }
+  }
+
+
+  /**
+   * Read an id, either as a string or as Mongo's {"$oid": "..."} object.
+   */
+  protected static String readObjectId(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT)
+      return reader.nextString();
+
+    String id = null;
+
+    reader.beginObject();
+    while (reader.hasNext())
+      if (reader.nextName().equals("$oid"))
+        id = reader.nextString();
+      else
+        reader.skipValue();
+    reader.endObject();
+
+    return id;
+  }
+
+
+  /**
+   * Read the record of a question: semester -> class -> grade.
+   */
+  protected static Map<Semester, Map<String, Float>> readRecord(JsonReader reader)
+    throws IOException
+  {
+    var record = new HashMap<Semester, Map<String, Float>>();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      var semester = parseSemester(reader.nextName());
+
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        record.put(semester, null); // rejected by the builder.
+        continue;
+      }
+
+      var grades = new HashMap<String, Float>();
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        var name = reader.nextName();
+
+        if (reader.peek() == JsonToken.NULL) {
+          reader.nextNull();
+          grades.put(name, null);
+        }
+        else
+          grades.put(name, (float) reader.nextDouble());
+      }
+      reader.endObject();
+
+      record.put(semester, grades);
+    }
+    reader.endObject();
+
+    return record;
+  }
+
+
+  /**
+   * Read the options of a multiple choice question.
+   */
+  protected static List<String> readOptions(JsonReader reader) throws IOException {
+    var options = new ArrayList<String>();
+
+    reader.beginArray();
+    while (reader.hasNext())
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        options.add(null);
+      }
+      else
+        options.add(reader.nextString());
+    reader.endArray();
+
+    return options;
+  }
+
+
+
+  /**
+   * Tracer, for the parse and render spans.
+   */
+  protected static final Tracer tracer = Tracer.getInstance();
+
+  /**
+   * The shared instance.
+   */
+  private static final Json instance = new Json();
 
   /**
    * The json formatter.
    */
   protected final Gson gson;
 
+  /**
+   * Parse and render durations, shared by all formatters.
+   */
+  protected final Histogram parseTime;
+  protected final Histogram renderTime;
+
 
 
   /**
    * Instantiate the formatter for Reprova's types.
-   * Currently, it supports only the Question type.
+   * Prefer the shared instance, from getInstance.
    */
   public Json() {
     var parserBuilder = new GsonBuilder();
 
+    parserBuilder.registerTypeAdapter(
+      Semester.class,
+      new SemesterAdapter().nullSafe()
+    );
+
     parserBuilder.registerTypeAdapter(
       QuestionBuilder.class,
-      new QuestionBuilderDeserializer()
+      new QuestionBuilderAdapter().nullSafe()
+    );
+
+    parserBuilder.registerTypeAdapter(
+      QuestionPatch.class,
+      new QuestionPatchAdapter().nullSafe()
+    );
+
+    parserBuilder.registerTypeHierarchyAdapter( // Also for OpenQuestion, MultipleChoiceQuestion.
+      Question.class,
+      new QuestionAdapter().nullSafe()
     );
 
     this.gson = parserBuilder.create();
+
+    var metrics = Metrics.getInstance();
+    this.parseTime = metrics.histogram(
+      "reprova_json_seconds",
+      "Duration of json parsing and rendering.",
+      Metrics.labels("operation", "parse"),
+      Histogram::durations
+    );
+    this.renderTime = metrics.histogram(
+      "reprova_json_seconds",
+      "Duration of json parsing and rendering.",
+      Metrics.labels("operation", "render"),
+      Histogram::durations
+    );
+  }
+
+
+  /**
+   * Returns the application's shared formatter.
+   */
+  public static Json getInstance() {
+    return instance;
   }
 
 
@@ -117,7 +475,32 @@ public class Json {
    * @throws JsonSyntaxException  if json is not a valid representation for the given class
    */
   public <T> T parse(String json, Class<T> cls) {
-    return this.gson.fromJson(json, cls);
+    var span = tracer.start("json.parse");
+    var start = System.nanoTime();
+    try {
+      return this.gson.fromJson(json, cls);
+    }
+    finally {
+      this.parseTime.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  /**
+   * Parse an already read json element in the given class.
+   * @throws JsonSyntaxException  if json is not a valid representation for the given class
+   */
+  public <T> T parse(JsonElement json, Class<T> cls) {
+    var span = tracer.start("json.parse");
+    var start = System.nanoTime();
+    try {
+      return this.gson.fromJson(json, cls);
+    }
+    finally {
+      this.parseTime.recordSince(start);
+      span.close();
+    }
   }
 
 
@@ -125,6 +508,62 @@ public class Json {
    * Render an object of the given class.
    */
   public <T> String render(T obj) {
-    return this.gson.toJson(obj);
+    var span = tracer.start("json.render");
+    var start = System.nanoTime();
+    try {
+      return this.gson.toJson(obj);
+    }
+    finally {
+      this.renderTime.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  /**
+   * Render an object of the given class to a streaming writer.
+   * @throws JsonIOException  if there was a problem writing to the writer
+   */
+  public <T> void render(T obj, JsonWriter writer) {
+    var span = tracer.start("json.render");
+    var start = System.nanoTime();
+    try {
+      this.gson.toJson(obj, obj.getClass(), writer);
+    }
+    finally {
+      this.renderTime.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  /**
+   * Render an object of the given class to a character stream, as a single json value.
+   * @throws JsonIOException  if there was a problem writing to the writer
+   */
+  public <T> void render(T obj, Writer writer) {
+    var span = tracer.start("json.render");
+    var start = System.nanoTime();
+    try {
+      this.gson.toJson(obj, obj.getClass(), writer);
+    }
+    finally {
+      this.renderTime.recordSince(start);
+      span.close();
+    }
+  }
+
+
+  /**
+   * Create a streaming writer on the given output stream, encoding in UTF-8.
+   * The writer must be flushed when done.
+   * The encoder is buffered, as it allocates a char array on every write, and JsonWriter
+   * writes token by token.
+   * @throws IOException  if the writer couldn't be created
+   */
+  public JsonWriter writer(OutputStream out) throws IOException {
+    return this.gson.newJsonWriter(
+      new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))
+    );
   }
 }
@@ -0,0 +1,183 @@
+package br.ufmg.engsoft.reprova.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A partial update of a question: the fields to set, and the fields to remove.
+ * Only the touched fields are validated, with the same rules as QuestionBuilder. The id
+ * and the question's type can't be patched; options and optCount go together, and only
+ * on multiple choice questions.
+ */
+public class QuestionPatch {
+  /**
+   * Fields to set, by name, in the order given.
+   */
+  protected final Map<String, Object> set = new LinkedHashMap<>();
+
+  /**
+   * Fields to remove. Only the statement is optional.
+   */
+  protected final Set<String> unset = new LinkedHashSet<>();
+
+
+  public QuestionPatch theme(String theme) {
+    this.set.put("theme", theme);
+    return this;
+  }
+
+  public QuestionPatch description(String description) {
+    this.set.put("description", description);
+    return this;
+  }
+
+  /**
+   * Set the statement, or remove it if null.
+   */
+  public QuestionPatch statement(String statement) {
+    if (statement == null) {
+      this.set.remove("statement");
+      this.unset.add("statement");
+    }
+    else {
+      this.unset.remove("statement");
+      this.set.put("statement", statement);
+    }
+    return this;
+  }
+
+  /**
+   * Set the record. A null record is empty, as in QuestionBuilder.
+   */
+  public QuestionPatch record(Map<Semester, Map<String, Float>> record) {
+    this.set.put("record", record == null ? new HashMap<>() : record);
+    return this;
+  }
+
+  public QuestionPatch pvt(boolean pvt) {
+    this.set.put("pvt", pvt);
+    return this;
+  }
+
+  public QuestionPatch optCount(String optCount) {
+    this.set.put("optCount", optCount);
+    return this;
+  }
+
+  public QuestionPatch options(List<String> options) {
+    this.set.put("options", options);
+    return this;
+  }
+
+
+  /**
+   * The fields to set, by name.
+   */
+  public Map<String, Object> getSet() {
+    return Collections.unmodifiableMap(this.set);
+  }
+
+  /**
+   * The fields to remove.
+   */
+  public Set<String> getUnset() {
+    return Collections.unmodifiableSet(this.unset);
+  }
+
+  /**
+   * Whether the patch changes the options of a multiple choice question.
+   */
+  public boolean touchesOptions() {
+    return this.set.containsKey("optCount") || this.set.containsKey("options");
+  }
+
+
+  /**
+   * Validate the touched fields.
+   * @return This patch.
+   * @throws IllegalArgumentException  if the patch is empty, or any touched field is invalid
+   */
+  @SuppressWarnings("unchecked")
+  public QuestionPatch validate() {
+    if (this.set.isEmpty() && this.unset.isEmpty())
+      throw new IllegalArgumentException("patch mustn't be empty");
+
+    for (var field : List.of("theme", "description")) {
+      if (!this.set.containsKey(field))
+        continue;
+
+      var value = (String) this.set.get(field);
+      if (value == null)
+        throw new IllegalArgumentException(field + " mustn't be null");
+      if (value.isEmpty())
+        throw new IllegalArgumentException(field + " mustn't be empty");
+    }
+
+    var record = (Map<Semester, Map<String, Float>>) this.set.get("record");
+    if (record != null)
+      for (var entry : record.entrySet())
+        if (entry.getValue() == null)
+          throw new IllegalArgumentException("inner record mustn't be null");
+
+    if (this.touchesOptions()) {
+      if (!this.set.containsKey("optCount") || !this.set.containsKey("options"))
+        throw new IllegalArgumentException("options and optCount must be patched together");
+
+      if (this.set.get("optCount") == null)
+        throw new IllegalArgumentException("optCount mustn't be null");
+      if (this.set.get("options") == null)
+        throw new IllegalArgumentException("options mustn't be null");
+    }
+
+    return this;
+  }
+
+
+  /**
+   * Apply the patch to the given question.
+   * @return The patched question, with the same id.
+   * @throws IllegalArgumentException  if the patch is invalid, or touches the options of a
+   *                                   question that isn't multiple choice
+   */
+  @SuppressWarnings("unchecked")
+  public Question apply(Question question) {
+    if (question == null)
+      throw new IllegalArgumentException("question mustn't be null");
+
+    this.validate();
+
+    var multipleChoice = question instanceof MultipleChoiceQuestion;
+    if (this.touchesOptions() && !multipleChoice)
+      throw new IllegalArgumentException("only multiple choice questions have options");
+
+    var builder = new QuestionBuilder()
+      .id(question.id)
+      .theme((String) this.set.getOrDefault("theme", question.theme))
+      .description((String) this.set.getOrDefault("description", question.description))
+      .statement(
+        this.unset.contains("statement")
+          ? null
+          : (String) this.set.getOrDefault("statement", question.statement)
+      )
+      .record(
+        (Map<Semester, Map<String, Float>>) this.set.getOrDefault("record", question.record)
+      )
+      .pvt((Boolean) this.set.getOrDefault("pvt", question.pvt));
+
+    if (multipleChoice) {
+      var multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+      builder
+        .type("multiple_choice")
+        .optCount((String) this.set.getOrDefault("optCount", multipleChoiceQuestion.optCount))
+        .options((List<String>) this.set.getOrDefault("options", multipleChoiceQuestion.options));
+    }
+
+    return builder.build();
+  }
+}
@@ -76,6 +76,32 @@ public class Semester {
 
 
 
+  /**
+   * Parse a Semester from the format "year/ref", where ref is 1 or 2.
+   * This is the inverse of toString.
+   * @param semester  the semester string
+   * @throws IllegalArgumentException  if the given string is not a valid semester
+   */
+  public static Semester parse(String semester) {
+    if (semester == null){
+      throw new IllegalArgumentException("semester mustn't be null");
+    }
+
+    String[] values = semester.split("/");
+
+    if (values.length != 2){
+      throw new IllegalArgumentException("invalid semester");
+    }
+
+    var year = Integer.parseInt(values[0]);
+
+    var ref = Reference.fromInt(Integer.parseInt(values[1]));
+
+    return new Semester(year, ref);
+  }
+
+
+
   @Override
   public boolean equals(Object obj) {
     if (obj == this){
@@ -0,0 +1,139 @@
+package br.ufmg.engsoft.reprova.routes;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import spark.embeddedserver.EmbeddedServer;
+import spark.embeddedserver.EmbeddedServerFactory;
+import spark.embeddedserver.jetty.EmbeddedJettyServer;
+import spark.embeddedserver.jetty.JettyHandler;
+import spark.embeddedserver.jetty.JettyServerFactory;
+import spark.http.matching.MatcherFilter;
+import spark.route.Routes;
+import spark.staticfiles.StaticFilesConfiguration;
+
+
+/**
+ * Spark's embedded Jetty server, with support for asynchronous responses.
+ * Spark has no asynchronous routes: once a route returns, it writes the body and closes the
+ * response. A route may still start servlet async processing (request.raw().startAsync())
+ * and return, completing the response later from another thread. For that, responses are
+ * reported to Spark as committed once async processing starts, so that Spark leaves them
+ * to the route.
+ * Otherwise, same as Spark's default Jetty factory, optionally with a custom thread pool.
+ */
+public class AsyncServerFactory implements EmbeddedServerFactory, JettyServerFactory {
+  /**
+   * Jetty thread pool defaults, same as Spark's.
+   */
+  protected static final int MinThreads = 8;
+  protected static final int MaxThreads = 200;
+  protected static final int IdleTimeout = 60000;
+
+  /**
+   * The thread pool, or null for Jetty's pool sized by Spark's settings.
+   */
+  protected final ThreadPool threadPool;
+
+
+
+  /**
+   * Basic constructor.
+   * @param threadPool  the thread pool, or null for Jetty's pool sized by Spark's settings
+   */
+  public AsyncServerFactory(ThreadPool threadPool) {
+    this.threadPool = threadPool;
+  }
+
+
+  /**
+   * Response that Spark sees as committed while async processing is started.
+   */
+  protected static class AsyncResponse extends HttpServletResponseWrapper {
+    protected final HttpServletRequest request;
+
+    public AsyncResponse(HttpServletRequest request, HttpServletResponse response) {
+      super(response);
+      this.request = request;
+    }
+
+    @Override
+    public boolean isCommitted() {
+      return this.request.isAsyncStarted() || super.isCommitted();
+    }
+  }
+
+
+  @Override
+  public EmbeddedServer create(
+    Routes routes,
+    StaticFilesConfiguration staticFilesConfiguration,
+    boolean hasMultipleHandler
+  ) {
+    var matcherFilter = new MatcherFilter(
+      routes,
+      staticFilesConfiguration,
+      false,
+      hasMultipleHandler
+    );
+    matcherFilter.init(null);
+
+    Filter filter = new Filter() {
+      @Override
+      public void init(FilterConfig config) { }
+
+      @Override
+      public void doFilter(
+        ServletRequest request,
+        ServletResponse response,
+        FilterChain chain
+      ) throws IOException, ServletException {
+        matcherFilter.doFilter(
+          request,
+          new AsyncResponse((HttpServletRequest) request, (HttpServletResponse) response),
+          chain
+        );
+      }
+
+      @Override
+      public void destroy() {
+        matcherFilter.destroy();
+      }
+    };
+
+    var handler = new JettyHandler(filter);
+    handler.getSessionCookieConfig().setHttpOnly(true);
+
+    return new EmbeddedJettyServer(this, handler).withThreadPool(this.threadPool);
+  }
+
+
+  @Override
+  public Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+    return new Server(
+      new QueuedThreadPool(
+        maxThreads > 0 ? maxThreads : MaxThreads,
+        minThreads > 0 ? minThreads : MinThreads,
+        threadTimeoutMillis > 0 ? threadTimeoutMillis : IdleTimeout
+      )
+    );
+  }
+
+  @Override
+  public Server create(ThreadPool threadPool) {
+    return threadPool != null ? new Server(threadPool) : new Server();
+  }
+}
@@ -0,0 +1,133 @@
+package br.ufmg.engsoft.reprova.routes;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Caps the number of requests handled at once with a semaphore.
+ * This bounds the load on the database independently of the server's threads, which is
+ * required when requests run on virtual threads. Requests that can't get a permit in time
+ * are rejected with 503.
+ */
+public class ConcurrencyLimiter {
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+  /**
+   * Request attribute marking that the request holds a permit.
+   */
+  protected static final String Permit = ConcurrencyLimiter.class.getName() + ".permit";
+
+  /**
+   * Rejection message.
+   */
+  protected static final String Overloaded = "{\"message\":\"Service overloaded\"}";
+
+  /**
+   * The permits.
+   */
+  protected final Semaphore permits;
+
+  /**
+   * Maximum time to wait for a permit, in milliseconds.
+   */
+  protected final long timeout;
+
+
+
+  /**
+   * Basic constructor.
+   * @param limit    the maximum number of concurrent requests, must be positive
+   * @param timeout  the maximum time to wait for a permit, in milliseconds
+   * @throws IllegalArgumentException  if limit isn't positive or timeout is negative
+   */
+  public ConcurrencyLimiter(int limit, long timeout) {
+    if (limit <= 0)
+      throw new IllegalArgumentException("limit must be positive");
+
+    if (timeout < 0)
+      throw new IllegalArgumentException("timeout mustn't be negative");
+
+    this.permits = new Semaphore(limit, true);
+    this.timeout = timeout;
+  }
+
+
+  /**
+   * Setup the limiter filters for all routes.
+   * Static files aren't limited, as they're served before any filter.
+   */
+  public void setup() {
+    Spark.before(this::acquire);
+    Spark.afterAfter(this::release);
+  }
+
+
+  /**
+   * Before filter: acquire a permit, or halt with 503.
+   */
+  protected void acquire(Request request, Response response) throws InterruptedException {
+    if (!this.permits.tryAcquire(this.timeout, TimeUnit.MILLISECONDS)) {
+      logger.warn("Rejected request, no permit in " + this.timeout + "ms: " + request.pathInfo());
+      response.type("application/json");
+      Spark.halt(503, Overloaded);
+    }
+
+    request.attribute(Permit, true);
+  }
+
+  /**
+   * After-after filter: release the request's permit, if any.
+   * Spark runs after-after filters even if the route fails or halts. Asynchronous requests
+   * keep the permit until the response completes.
+   */
+  protected void release(Request request, Response response) {
+    var raw = request.raw();
+
+    if (raw.getAttribute(Permit) == null)
+      return;
+
+    raw.removeAttribute(Permit);
+
+    if (!raw.isAsyncStarted()) {
+      this.permits.release();
+      return;
+    }
+
+    raw.getAsyncContext().addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        permits.release();
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) { }
+
+      @Override
+      public void onError(AsyncEvent event) { }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) { }
+    });
+  }
+
+  /**
+   * The number of available permits.
+   */
+  public int available() {
+    return this.permits.availablePermits();
+  }
+}
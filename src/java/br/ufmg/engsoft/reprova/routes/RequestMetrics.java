@@ -0,0 +1,132 @@
+package br.ufmg.engsoft.reprova.routes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+import br.ufmg.engsoft.reprova.metrics.Histogram;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+
+
+/**
+ * Records the count and latency of requests, by route, method and status.
+ * Latency is measured from the first filter to the end of the response: asynchronous
+ * requests are recorded when they complete. Requests to unknown paths share the 'other'
+ * route, so that clients can't create series at will.
+ */
+public class RequestMetrics {
+  /**
+   * Request attributes: start time, and matched route.
+   */
+  protected static final String Start = RequestMetrics.class.getName() + ".start";
+  protected static final String Route = RequestMetrics.class.getName() + ".route";
+
+  /**
+   * The registry.
+   */
+  protected final Metrics metrics;
+
+  /**
+   * Latency histograms, by method, route and status.
+   */
+  protected final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+
+
+  /**
+   * Basic constructor.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public RequestMetrics(Metrics metrics) {
+    if (metrics == null)
+      throw new IllegalArgumentException("metrics mustn't be null");
+
+    this.metrics = metrics;
+  }
+
+
+  /**
+   * Setup the filters that record requests.
+   * Must come before the other filters, so that their time is included.
+   * @param routes  the known route paths
+   */
+  public void setup(String... routes) {
+    Spark.before((request, response) -> request.attribute(Start, System.nanoTime()));
+
+    for (var route : routes)
+      Spark.before(route, (request, response) -> request.attribute(Route, route));
+
+    Spark.afterAfter(this::record);
+  }
+
+
+  /**
+   * After-after filter: record the request, now or when its response completes.
+   */
+  protected void record(Request request, Response response) {
+    var raw = request.raw();
+
+    if (!raw.isAsyncStarted()) {
+      this.record(raw, response.raw());
+      return;
+    }
+
+    raw.getAsyncContext().addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        record(raw, (HttpServletResponse) event.getSuppliedResponse());
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) { }
+
+      @Override
+      public void onError(AsyncEvent event) { }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) { }
+    });
+  }
+
+  protected void record(HttpServletRequest request, HttpServletResponse response) {
+    var start = (Long) request.getAttribute(Start);
+    if (start == null)
+      return;
+
+    var route = (String) request.getAttribute(Route);
+    if (route == null)
+      route = "other";
+
+    var method = request.getMethod();
+    var status = response.getStatus();
+
+    var key = method + " " + route + " " + status;
+    var histogram = this.histograms.get(key);
+    if (histogram == null) {
+      var labels = Metrics.labels(
+        "method", method,
+        "route", route,
+        "status", String.valueOf(status)
+      );
+      histogram = this.histograms.computeIfAbsent(
+        key,
+        ignored -> this.metrics.histogram(
+          "reprova_http_request_seconds",
+          "Duration of HTTP requests; the count is the number of requests.",
+          labels,
+          Histogram::durations
+        )
+      );
+    }
+
+    histogram.recordSince(start);
+  }
+}
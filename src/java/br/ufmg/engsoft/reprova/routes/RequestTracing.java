@@ -0,0 +1,116 @@
+package br.ufmg.engsoft.reprova.routes;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+import br.ufmg.engsoft.reprova.tracing.Span;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
+
+
+/**
+ * Starts a trace for each sampled request, with a root span covering the whole request.
+ * The trace id is taken from the request's 'X-Trace-Id' header, if valid, and returned in
+ * the response's. Asynchronous requests are traced until their response completes.
+ */
+public class RequestTracing {
+  /**
+   * Trace id header.
+   */
+  public static final String Header = "X-Trace-Id";
+
+  /**
+   * Request attribute: the root span.
+   */
+  protected static final String Root = RequestTracing.class.getName() + ".root";
+
+  protected final Tracer tracer;
+
+
+
+  /**
+   * Basic constructor.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public RequestTracing(Tracer tracer) {
+    if (tracer == null)
+      throw new IllegalArgumentException("tracer mustn't be null");
+
+    this.tracer = tracer;
+  }
+
+
+  /**
+   * Setup the tracing filters for all routes.
+   * Must come before the other filters, so that their time is included.
+   */
+  public void setup() {
+    Spark.before(this::start);
+    Spark.afterAfter(this::end);
+  }
+
+
+  /**
+   * Before filter: start the request's trace, if sampled.
+   */
+  protected void start(Request request, Response response) {
+    var id = request.headers(Header);
+    if (!Tracer.isTraceId(id))
+      id = null;
+
+    var root = this.tracer.startTrace(request.requestMethod() + " " + request.pathInfo(), id);
+    if (!root.isRecording())
+      return;
+
+    root
+      .attribute("http.method", request.requestMethod())
+      .attribute("http.target", request.pathInfo());
+
+    request.attribute(Root, root);
+    response.header(Header, root.traceId());
+  }
+
+  /**
+   * After-after filter: end the request's trace, now or when its response completes.
+   */
+  protected void end(Request request, Response response) {
+    var raw = request.raw();
+    var root = (Span) raw.getAttribute(Root);
+    this.tracer.detach();
+
+    if (root == null)
+      return;
+
+    raw.removeAttribute(Root);
+
+    if (!raw.isAsyncStarted()) {
+      end(root, response.raw());
+      return;
+    }
+
+    raw.getAsyncContext().addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        end(root, (HttpServletResponse) event.getSuppliedResponse());
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) { }
+
+      @Override
+      public void onError(AsyncEvent event) { }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) { }
+    });
+  }
+
+  protected static void end(Span root, HttpServletResponse response) {
+    root.attribute("http.status_code", response.getStatus());
+    root.close();
+  }
+}
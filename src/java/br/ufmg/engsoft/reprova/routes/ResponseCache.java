@@ -0,0 +1,158 @@
+package br.ufmg.engsoft.reprova.routes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+
+/**
+ * Cache of rendered response bodies.
+ * Each entry is tagged with the version of the data it was rendered from, and is only
+ * served while that version is current, or newer than the requested one. Writes bump the
+ * version, so they implicitly invalidate every entry.
+ */
+public class ResponseCache {
+  /**
+   * A rendered body.
+   */
+  public static class Entry {
+    /**
+     * The data version the body was rendered from.
+     */
+    public final long version;
+    /**
+     * The body.
+     */
+    public final byte[] body;
+    /**
+     * The gzip compressed body, or null if compression is disabled.
+     */
+    public final byte[] gzip;
+
+    protected Entry(long version, byte[] body, byte[] gzip) {
+      this.version = version;
+      this.body = body;
+      this.gzip = gzip;
+    }
+  }
+
+
+  /**
+   * Renders a body to the given output.
+   */
+  @FunctionalInterface
+  public interface Renderer {
+    void render(OutputStream out) throws IOException;
+  }
+
+
+
+  /**
+   * The entries, by key, as futures completed once rendered. Bounded, as keys may include
+   * request parameters. Failed renderings are dropped by the cache.
+   */
+  protected final AsyncCache<String, Entry> entries;
+
+  /**
+   * Whether to keep a gzip compressed copy of the bodies.
+   */
+  protected final boolean gzip;
+
+
+
+  /**
+   * Instantiate the cache.
+   * @param size  the maximum number of entries
+   * @param gzip  whether to keep gzip compressed bodies too
+   */
+  public ResponseCache(long size, boolean gzip) {
+    this.entries = Caffeine.newBuilder()
+      .maximumSize(size)
+      .buildAsync();
+
+    this.gzip = gzip;
+  }
+
+
+
+  /**
+   * Get the body for the given key at the given version, rendering it if there is no such
+   * entry. Concurrent renderings of the same key are coalesced.
+   * The body is rendered on the calling thread, outside of the cache's locks: only the
+   * future of the entry is installed atomically, so other keys are never held up.
+   * @param key       the entry key
+   * @param version   the current data version
+   * @param renderer  renders the body if needed
+   * @throws UncheckedIOException  if the renderer fails
+   */
+  public Entry get(String key, long version, Renderer renderer) {
+    var futures = this.entries.asMap();
+
+    while (true) {
+      var future = futures.get(key);
+
+      if (future != null) {
+        Entry entry;
+        try {
+          entry = future.join(); // wait for a rendering in progress.
+        }
+        catch (CompletionException e) {
+          entry = null; // failed, render again.
+        }
+
+        if (entry != null && entry.version >= version) // newer is fine too.
+          return entry;
+      }
+
+      var rendering = new CompletableFuture<Entry>();
+      var installed = future == null
+        ? futures.putIfAbsent(key, rendering) == null
+        : futures.replace(key, future, rendering);
+
+      if (!installed)
+        continue; // someone else got there first, use theirs.
+
+      try {
+        var entry = this.render(version, renderer);
+        rendering.complete(entry);
+        return entry;
+      }
+      catch (RuntimeException | Error e) {
+        rendering.completeExceptionally(e);
+        throw e;
+      }
+    }
+  }
+
+
+  /**
+   * Render a new entry.
+   */
+  protected Entry render(long version, Renderer renderer) {
+    try {
+      var body = new ByteArrayOutputStream();
+      renderer.render(body);
+
+      byte[] gzipBody = null;
+      if (this.gzip) {
+        var compressed = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(compressed)) {
+          body.writeTo(out);
+        }
+        gzipBody = compressed.toByteArray();
+      }
+
+      return new Entry(version, body.toByteArray(), gzipBody);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
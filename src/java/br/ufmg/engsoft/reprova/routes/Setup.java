@@ -1,11 +1,17 @@
 package br.ufmg.engsoft.reprova.routes;
 
 import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.config.ConfigWatcher;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+import br.ufmg.engsoft.reprova.routes.controllers.MetricsController;
 import br.ufmg.engsoft.reprova.routes.controllers.QuestionController;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
 
 
 /**
@@ -26,7 +32,45 @@ public class Setup {
   /**
    * The port for the webserver.
    */
-  protected static final int port = Integer.parseInt(System.getenv("PORT"));
+  protected static final int port = Integer.parseInt(Config.getInstance().get("PORT"));
+
+  /**
+   * How the webserver runs requests, from 'REPROVA_SERVER_MODE' environment variable:
+   * 'pool' for Jetty's bounded thread pool, or 'virtual' for a virtual thread per request.
+   * Defaults to 'pool'.
+   */
+  protected static final String serverMode =
+    Config.getInstance().get("REPROVA_SERVER_MODE", "pool");
+
+  /**
+   * Maximum number of threads in pool mode, from 'REPROVA_SERVER_THREADS' environment
+   * variable. Defaults to Spark's default.
+   */
+  protected static final String serverThreads = Config.getInstance().get("REPROVA_SERVER_THREADS");
+
+  /**
+   * Maximum number of requests handled at once, from 'REPROVA_MAX_CONCURRENCY' environment
+   * variable. Defaults to 0, unlimited.
+   */
+  protected static final int maxConcurrency = Integer.parseInt(
+    Config.getInstance().get("REPROVA_MAX_CONCURRENCY", "0")
+  );
+
+  /**
+   * Time in milliseconds a request waits for a slot when concurrency is capped, from
+   * 'REPROVA_CONCURRENCY_WAIT' environment variable. Defaults to 1000.
+   */
+  protected static final long concurrencyWait = Long.parseLong(
+    Config.getInstance().get("REPROVA_CONCURRENCY_WAIT", "1000")
+  );
+
+  /**
+   * Whether request metrics are recorded and served on '/metrics', from 'REPROVA_METRICS'
+   * environment variable. Defaults to true.
+   */
+  protected static final boolean metrics = Boolean.parseBoolean(
+    Config.getInstance().get("REPROVA_METRICS", "true")
+  );
 
 
   /**
@@ -37,6 +81,14 @@ public class Setup {
    * @throws IllegalArgumentException  if any parameter is null
    */
   public static void routes() {
+    var configFile = Config.file();
+    if (configFile != null) {
+      logger.info("Reloading settings on changes to " + configFile);
+      new ConfigWatcher(configFile, Config::reload);
+    }
+
+    Setup.server();
+
     Spark.port(Setup.port);
 
     logger.info("Spark on port " + Setup.port);
@@ -44,7 +96,83 @@ public class Setup {
     logger.info("Setting up static resources.");
     Spark.staticFiles.location("/public");
 
+    if (Setup.metrics) {
+      logger.info("Recording request metrics.");
+      new RequestMetrics(Metrics.getInstance()).setup(
+        "/api/questions",
+        "/api/questions/batch",
+        "/api/questions/export",
+        "/metrics"
+      );
+    }
+
+    var tracer = Tracer.getInstance();
+    if (tracer.isEnabled()) {
+      logger.info("Tracing requests.");
+      new RequestTracing(tracer).setup();
+    }
+
+    if (Setup.maxConcurrency > 0) {
+      logger.info("Capping concurrency at " + Setup.maxConcurrency + " requests.");
+      new ConcurrencyLimiter(Setup.maxConcurrency, Setup.concurrencyWait).setup();
+    }
+
     logger.info("Setting up questions route:");
     new QuestionController().setup();
+
+    if (Setup.metrics) {
+      logger.info("Setting up metrics route:");
+      new MetricsController(Metrics.getInstance()).setup();
+    }
+  }
+
+
+  /**
+   * Setup the webserver's threads, according to the server mode, on a server that supports
+   * asynchronous responses.
+   * Falls back to the thread pool if virtual threads aren't available.
+   * @throws IllegalArgumentException  if the server mode is unknown
+   */
+  protected static void server() {
+    switch (Setup.serverMode) {
+      case "virtual":
+        if (VirtualThreadPool.isSupported()) {
+          logger.info("Running requests on virtual threads.");
+          EmbeddedServers.add(
+            EmbeddedServers.Identifiers.JETTY,
+            new AsyncServerFactory(new VirtualThreadPool())
+          );
+          return;
+        }
+
+        logger.warn(
+          "Virtual threads require Java 21, running on " + Runtime.version()
+            + ". Falling back to the thread pool."
+        );
+        pool();
+        return;
+
+      case "pool":
+        pool();
+        return;
+
+      default:
+        throw new IllegalArgumentException("invalid server mode: " + Setup.serverMode);
+    }
+  }
+
+  /**
+   * Run requests on Jetty's thread pool, sized by the server threads setting if present.
+   */
+  protected static void pool() {
+    EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new AsyncServerFactory(null));
+
+    if (Setup.serverThreads != null) {
+      var threads = Integer.parseInt(Setup.serverThreads);
+      Spark.threadPool(threads);
+      logger.info("Running requests on a pool of " + threads + " threads.");
+    }
+    else
+      logger.info("Running requests on the default thread pool.");
   }
 }
@@ -0,0 +1,120 @@
+package br.ufmg.engsoft.reprova.routes;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+
+/**
+ * Jetty thread pool that runs every task in a new virtual thread.
+ * Blocking calls, such as the DAO's mongodb queries, park the virtual thread instead of
+ * holding a platform thread, so concurrency isn't capped by the pool size.
+ * Virtual threads are only available from Java 21, and are looked up by reflection, as the
+ * project is still compiled for Java 11.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+  /**
+   * The virtual thread per task executor.
+   */
+  protected final ExecutorService executor;
+
+  /**
+   * Number of running tasks.
+   */
+  protected final AtomicInteger running = new AtomicInteger();
+
+
+
+  /**
+   * Basic constructor.
+   * @throws UnsupportedOperationException  if the runtime has no virtual threads
+   */
+  public VirtualThreadPool() {
+    this.executor = newVirtualThreadPerTaskExecutor();
+  }
+
+
+  /**
+   * Whether the runtime supports virtual threads.
+   */
+  public static boolean isSupported() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    }
+    catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Create a virtual thread per task executor.
+   * @throws UnsupportedOperationException  if the runtime has no virtual threads
+   */
+  protected static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+        .getMethod("newVirtualThreadPerTaskExecutor")
+        .invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      throw new UnsupportedOperationException(
+        "virtual threads require Java 21, running on " + Runtime.version(),
+        e
+      );
+    }
+  }
+
+
+  @Override
+  public void execute(Runnable task) {
+    this.executor.execute(() -> {
+      this.running.incrementAndGet();
+      try {
+        task.run();
+      }
+      finally {
+        this.running.decrementAndGet();
+      }
+    });
+  }
+
+  @Override
+  public void join() throws InterruptedException {
+    while (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) { }
+  }
+
+  /**
+   * The number of running tasks, as each has its own thread.
+   */
+  @Override
+  public int getThreads() {
+    return this.running.get();
+  }
+
+  /**
+   * Virtual threads are never idle, they're created per task.
+   */
+  @Override
+  public int getIdleThreads() {
+    return 0;
+  }
+
+  /**
+   * A virtual thread is always available.
+   */
+  @Override
+  public boolean isLowOnThreads() {
+    return false;
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    this.executor.shutdown();
+    super.doStop();
+  }
+}
@@ -0,0 +1,73 @@
+package br.ufmg.engsoft.reprova.routes.controllers;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+
+
+/**
+ * Metrics route, in Prometheus text format.
+ */
+public class MetricsController {
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(MetricsController.class);
+
+  /**
+   * Prometheus text format content type.
+   */
+  protected static final String ContentType = "text/plain; version=0.0.4; charset=utf-8";
+
+  /**
+   * The registry.
+   */
+  protected final Metrics metrics;
+
+
+
+  /**
+   * Build the controller for the given registry.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public MetricsController(Metrics metrics) {
+    if (metrics == null)
+      throw new IllegalArgumentException("metrics mustn't be null");
+
+    this.metrics = metrics;
+  }
+
+
+  /**
+   * Install the endpoint in Spark.
+   * Methods:
+   * - GET
+   */
+  public void setup() {
+    Spark.get("/metrics", this::get);
+
+    logger.info("Setup /metrics.");
+  }
+
+
+  /**
+   * Get endpoint: all the metrics.
+   */
+  protected Object get(Request request, Response response) throws IOException {
+    var writer = new StringWriter(16 * 1024);
+    this.metrics.write(writer);
+
+    response.type(ContentType);
+    response.status(200);
+
+    return writer.toString();
+  }
+}
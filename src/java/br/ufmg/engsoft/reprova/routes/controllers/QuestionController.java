@@ -1,31 +1,69 @@
 package br.ufmg.engsoft.reprova.routes.controllers;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
 import spark.Spark;
 import spark.Request;
 import spark.Response;
 
+import org.bson.types.ObjectId;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
-import br.ufmg.engsoft.reprova.services.handlers.CreateQuestionHandler;
-import br.ufmg.engsoft.reprova.services.handlers.DeleteQuestionHandler;
-import br.ufmg.engsoft.reprova.services.handlers.GetQuestionByIdHandler;
-import br.ufmg.engsoft.reprova.services.handlers.GetQuestionsHandler;
-import br.ufmg.engsoft.reprova.services.handlers.UpdateQuestionHandler;
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.services.HandlerRegistry;
 import br.ufmg.engsoft.reprova.services.input.CreateQuestionInput;
+import br.ufmg.engsoft.reprova.services.input.CreateQuestionsBatchInput;
 import br.ufmg.engsoft.reprova.services.input.DeleteQuestionInput;
+import br.ufmg.engsoft.reprova.services.input.DeleteQuestionsBatchInput;
+import br.ufmg.engsoft.reprova.services.input.ExportQuestionsInput;
 import br.ufmg.engsoft.reprova.services.input.GetQuestionByIdInput;
+import br.ufmg.engsoft.reprova.services.input.GetQuestionsByIdsInput;
 import br.ufmg.engsoft.reprova.services.input.GetQuestionsInput;
+import br.ufmg.engsoft.reprova.services.input.PatchQuestionInput;
 import br.ufmg.engsoft.reprova.services.input.UpdateQuestionInput;
+import br.ufmg.engsoft.reprova.services.interfaces.IAsyncGetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IAsyncGetQuestionsHandler;
 import br.ufmg.engsoft.reprova.services.interfaces.ICreateQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.ICreateQuestionsBatchHandler;
 import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IExportQuestionsHandler;
 import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsByIdsHandler;
 import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IPatchQuestionHandler;
 import br.ufmg.engsoft.reprova.services.interfaces.IUpdateQuestionHandler;
 import br.ufmg.engsoft.reprova.services.output.CreateQuestionOutput;
+import br.ufmg.engsoft.reprova.services.output.CreateQuestionsBatchOutput;
 import br.ufmg.engsoft.reprova.services.output.DeleteQuestionOutput;
+import br.ufmg.engsoft.reprova.services.output.DeleteQuestionsBatchOutput;
+import br.ufmg.engsoft.reprova.services.output.ExportQuestionsOutput;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionByIdOutput;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionsByIdsOutput;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionsOutput;
+import br.ufmg.engsoft.reprova.services.output.PatchQuestionOutput;
 import br.ufmg.engsoft.reprova.services.output.UpdateQuestionOutput;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.logging.Lazy;
+import br.ufmg.engsoft.reprova.logging.LogSampler;
 import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.routes.ResponseCache;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
+import br.ufmg.engsoft.reprova.model.Question;
 
 
 /**
@@ -37,10 +75,23 @@ public class QuestionController {
    */
   protected static final Logger logger = LoggerFactory.getLogger(QuestionController.class);
 
+  /**
+   * Samplers for the messages a client may trigger at will.
+   */
+  protected static final LogSampler unauthorizedLog =
+    new LogSampler(logger, Level.WARN, "Unauthorized request");
+  protected static final LogSampler invalidLog =
+    new LogSampler(logger, Level.ERROR, "Invalid request");
+
+  /**
+   * Tracer, for the handler spans.
+   */
+  protected static final Tracer tracer = Tracer.getInstance();
+
   /**
    * Access token.
    */
-  protected static final String Token = System.getenv("REPROVA_TOKEN");
+  protected static final String Token = Config.getInstance().get("REPROVA_TOKEN");
 
   /**
    * Messages.
@@ -48,29 +99,117 @@ public class QuestionController {
   protected static final String Unauthorized = "\"Unauthorized\"";
   protected static final String Invalid = "\"Invalid request\"";
   protected static final String Ok = "\"Ok\"";
+  protected static final String Failed = "\"Internal error\"";
+
+  /**
+   * Process start time, part of the entity tags.
+   */
+  protected static final String Epoch = Long.toHexString(System.currentTimeMillis());
+
+  /**
+   * Maximum number of rendered list pages to cache, from 'REPROVA_RESPONSE_CACHE_SIZE'
+   * environment variable. Defaults to 32, and 0 disables the cache.
+   */
+  protected static final long responseCacheSize = Long.parseLong(
+    Config.getInstance().get("REPROVA_RESPONSE_CACHE_SIZE", "32")
+  );
+
+  /**
+   * Whether to keep gzip compressed copies of the cached pages, from
+   * 'REPROVA_RESPONSE_GZIP' environment variable. Defaults to true.
+   */
+  protected static final boolean responseGzip = !"false".equals(
+    Config.getInstance().get("REPROVA_RESPONSE_GZIP")
+  );
+
+  /**
+   * Whether reads are handled asynchronously, from 'REPROVA_ASYNC' environment variable.
+   * Defaults to false. Only for the mongo store, the memory store never blocks.
+   */
+  protected static final boolean async =
+    Boolean.parseBoolean(Config.getInstance().get("REPROVA_ASYNC"))
+    && "mongo".equals(QuestionRepository.Store);
 
   /**
    * Json formatter.
    */
   protected final Json json;
 
+  /**
+   * Rendered list pages, or null if disabled.
+   */
+  protected final ResponseCache responseCache;
+
+  /**
+   * Handlers, wired once.
+   */
+  protected final IGetQuestionByIdHandler getQuestionByIdHandler;
+  protected final IGetQuestionsByIdsHandler getQuestionsByIdsHandler;
+  protected final IGetQuestionsHandler getQuestionsHandler;
+  protected final IAsyncGetQuestionByIdHandler asyncGetQuestionByIdHandler;
+  protected final IAsyncGetQuestionsHandler asyncGetQuestionsHandler;
+  protected final IExportQuestionsHandler exportQuestionsHandler;
+  protected final ICreateQuestionHandler createQuestionHandler;
+  protected final ICreateQuestionsBatchHandler createQuestionsBatchHandler;
+  protected final IUpdateQuestionHandler updateQuestionHandler;
+  protected final IPatchQuestionHandler patchQuestionHandler;
+  protected final IDeleteQuestionHandler deleteQuestionHandler;
+  protected final IDeleteQuestionsBatchHandler deleteQuestionsBatchHandler;
+
   public QuestionController() {
-    json = new Json();
+    this(HandlerRegistry.getInstance());
+  }
+
+  /**
+   * Build the controller with the handlers in the given registry.
+   * The async handlers are only looked up if reads are asynchronous.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public QuestionController(HandlerRegistry handlers) {
+    if (handlers == null)
+      throw new IllegalArgumentException("handlers mustn't be null");
+
+    json = Json.getInstance();
+
+    getQuestionByIdHandler = handlers.get(IGetQuestionByIdHandler.class);
+    getQuestionsByIdsHandler = handlers.get(IGetQuestionsByIdsHandler.class);
+    getQuestionsHandler = handlers.get(IGetQuestionsHandler.class);
+    asyncGetQuestionByIdHandler = async ? handlers.get(IAsyncGetQuestionByIdHandler.class) : null;
+    asyncGetQuestionsHandler = async ? handlers.get(IAsyncGetQuestionsHandler.class) : null;
+    exportQuestionsHandler = handlers.get(IExportQuestionsHandler.class);
+    createQuestionHandler = handlers.get(ICreateQuestionHandler.class);
+    createQuestionsBatchHandler = handlers.get(ICreateQuestionsBatchHandler.class);
+    updateQuestionHandler = handlers.get(IUpdateQuestionHandler.class);
+    patchQuestionHandler = handlers.get(IPatchQuestionHandler.class);
+    deleteQuestionHandler = handlers.get(IDeleteQuestionHandler.class);
+    deleteQuestionsBatchHandler = handlers.get(IDeleteQuestionsBatchHandler.class);
+
+    responseCache = responseCacheSize > 0
+      ? new ResponseCache(responseCacheSize, responseGzip)
+      : null;
   }
 
   /**
    * Install the endpoint in Spark.
    * Methods:
    * - GET
+   * - GET /export
    * - POST
+   * - POST /batch
    * - PUT
+   * - PATCH
    * - DELETE
+   * - DELETE /batch
    */
   public void setup() {
     Spark.get("/api/questions", this::get);
     Spark.post("/api/questions", this::post);
+    Spark.post("/api/questions/batch", this::postBatch);
+    Spark.get("/api/questions/export", this::export);
     Spark.put("/api/questions", this::put);
+    Spark.patch("/api/questions", this::patch);
     Spark.delete("/api/questions", this::delete);
+    Spark.delete("/api/questions/batch", this::deleteBatch);
 
     logger.info("Setup /api/questions.");
   }
@@ -85,25 +224,101 @@ public class QuestionController {
 
 
   /**
-   * Get endpoint: lists all questions, or a single question if a 'id' query parameter is
-   * provided.
+   * Build a strong entity tag for a resource at the given data version.
+   * The tag changes whenever the data is written to, and across restarts, as the version
+   * restarts with the process.
+   * @param version   the version of the data the response is built from
+   * @param resource  identifies the response among those under the same URL
+   */
+  protected static String etag(long version, String resource) {
+    return "\"" + Epoch + "-" + version + "-" + resource + "\"";
+  }
+
+
+  /**
+   * Set the given entity tag, and check it against the request's If-None-Match header.
+   * If any of the client's tags matches, responds with 304 Not Modified.
+   * @return Whether the response is complete, with no body.
+   */
+  protected static boolean notModified(Request request, Response response, String etag) {
+    response.header("ETag", etag);
+    response.header("Cache-Control", "no-cache"); // Cache, but revalidate with the tag.
+
+    var ifNoneMatch = request.headers("If-None-Match");
+    if (ifNoneMatch == null)
+      return false;
+
+    for (var tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+
+      if (tag.startsWith("W/")) // If-None-Match uses weak comparison.
+        tag = tag.substring(2);
+
+      if (tag.equals("*") || tag.equals(etag)) {
+        logger.debug("Not modified: {}", etag);
+        response.status(304);
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+
+  /**
+   * Get endpoint: lists a page of questions, or a single question if a 'id' query parameter
+   * is provided, or many questions if a comma separated 'ids' query parameter is provided.
+   * The page is selected by the optional 'after' (cursor) and 'limit' query parameters.
    */
   protected Object get(Request request, Response response) {
-    logger.info("Received questions get:");
+    logger.debug("Received questions get:");
 
     var id = request.queryParams("id");
     var auth = authorized(request.queryParams("token"));
 
-    return id == null
-      ? this.get(response, auth)
-      : this.get(response, id, auth);
+    if (id != null)
+      return this.get(request, response, id, auth);
+
+    var ids = request.queryParams("ids");
+    if (ids != null)
+      return this.getMany(request, response, ids, auth);
+
+    Integer limit = null;
+    var limitParam = request.queryParams("limit");
+    if (limitParam != null) {
+      try {
+        limit = Integer.valueOf(limitParam);
+      } catch (NumberFormatException e) {
+        limit = 0;
+      }
+
+      if (limit <= 0) {
+        if (invalidLog.sample())
+          logger.error("Invalid limit: {}", limitParam);
+        response.type("application/json");
+        response.status(400);
+        return Invalid;
+      }
+    }
+
+    var after = request.queryParams("after");
+    if (after != null && !ObjectId.isValid(after)) {
+      if (invalidLog.sample())
+        logger.error("Invalid cursor: {}", after);
+      response.type("application/json");
+      response.status(400);
+      return Invalid;
+    }
+
+    return this.get(request, response, auth, after, limit);
   }
 
   /**
    * Get id endpoint: fetch the specified question from the database.
    * If not authorized, and the given question is private, returns an error message.
+   * Responds 304 without rendering the question if the client's tag is current.
    */
-protected Object get(Response response, String id, boolean auth) {
+protected Object get(Request request, Response response, String id, boolean auth) {
   if (id == null) {
 
       throw new IllegalArgumentException("id mustn't be null");
@@ -111,31 +326,103 @@ protected Object get(Response response, String id, boolean auth) {
 
     response.type("application/json");
 
-    if (logger.isInfoEnabled()) {
-      logger.info("Fetching question " + id);
-    }
+    logger.debug("Fetching question {}", id);
 
 		GetQuestionByIdInput input = new GetQuestionByIdInput(id);
-		IGetQuestionByIdHandler handler = new GetQuestionByIdHandler();
-		var output = handler.handle(input);
 
+    if (async) {
+      IAsyncGetQuestionByIdHandler handler = asyncGetQuestionByIdHandler;
+      return this.async(
+        request,
+        response,
+        handler.handle(input),
+        output -> this.respond(request, response, output, id, auth)
+      );
+    }
+
+		IGetQuestionByIdHandler handler = getQuestionByIdHandler;
+		GetQuestionByIdOutput output;
+    var span = tracer.start("handler.getQuestionById");
+    try {
+      output = handler.handle(input);
+    }
+    finally {
+      span.close();
+    }
+
+    return this.respond(request, response, output, id, auth);
+  }
+
+  /**
+   * Get ids endpoint: fetch the specified questions from the database, in a single query.
+   * The response reports, for each id in order, the question or why it wasn't returned:
+   * if not authorized, private questions are left out.
+   * @param ids  the comma separated ids
+   */
+  protected Object getMany(Request request, Response response, String ids, boolean auth) {
+    response.type("application/json");
+
+    var list = new ArrayList<String>();
+    for (var id : ids.split(",", -1))
+      list.add(id.trim());
+
+    logger.debug("Fetching {} questions", list.size());
+
+    GetQuestionsByIdsInput input = new GetQuestionsByIdsInput(list, auth);
+    IGetQuestionsByIdsHandler handler = getQuestionsByIdsHandler;
+    GetQuestionsByIdsOutput output;
+    var span = tracer.start("handler.getQuestionsByIds");
+    try {
+      output = handler.handle(input);
+    } catch(Exception | Error e) {
+      if (invalidLog.sample())
+        logger.error("Invalid request!", e);
+      response.status(400);
+      return Invalid;
+    }
+    finally {
+      span.close();
+    }
+
+    logger.debug("Done. Responding...");
+
+    response.status(200);
+
+    return json.render(output.getItems());
+  }
+
+  /**
+   * Respond with the fetched question.
+   * @see #get(Request, Response, String, boolean)
+   */
+  protected Object respond(
+    Request request,
+    Response response,
+    GetQuestionByIdOutput output,
+    String id,
+    boolean auth
+  ) {
     var question = output.getQuestion();
 
     if (question == null) {
-      logger.error("Invalid request!");
+      if (invalidLog.sample())
+        logger.error("Invalid request!");
       response.status(400);
       return Invalid;
     }
 
     if (question.pvt && !auth) {
-      if (logger.isInfoEnabled()) {
-        logger.info("Unauthorized token: " + Token);
-      }
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
       response.status(403);
       return Unauthorized;
     }
 
-    logger.info("Done. Responding...");
+    var etag = etag(output.getVersion(), id);
+    if (notModified(request, response, etag))
+      return "";
+
+    logger.debug("Done. Responding...");
 
     response.status(200);
 
@@ -143,25 +430,307 @@ protected Object get(Response response, String id, boolean auth) {
   }
 
   /**
-   * Get all endpoint: fetch all questions from the database.
+   * Get all endpoint: fetch a page of questions from the database.
    * If not authorized, fetches only public questions.
+   * The response carries the questions and, if there are more, the 'next' cursor.
+   * @param after  the cursor returned by the previous page, or null for the first one
+   * @param limit  the page size, or null for the default
    */
-  protected Object get(Response response, boolean auth) {
+  protected Object get(Request request, Response response, boolean auth, String after, Integer limit) {
     response.type("application/json");
 
-    logger.info("Fetching questions.");
+    logger.debug("Fetching questions.");
 
-		GetQuestionsInput input = new GetQuestionsInput(auth);
-		IGetQuestionsHandler handler = new GetQuestionsHandler();
-		var output = handler.handle(input);
+		GetQuestionsInput input = new GetQuestionsInput(auth, after, limit);
 
-    var questions = output.getQuestions();
+    if (async) {
+      IAsyncGetQuestionsHandler handler = asyncGetQuestionsHandler;
+      return this.async(
+        request,
+        response,
+        handler.handle(input),
+        output -> this.respond(request, response, output, auth, after)
+      );
+    }
 
-    logger.info("Done. Responding...");
+		IGetQuestionsHandler handler = getQuestionsHandler;
+		GetQuestionsOutput output;
+    var span = tracer.start("handler.getQuestions");
+    try {
+      output = handler.handle(input);
+    }
+    finally {
+      span.close();
+    }
+
+    return this.respond(request, response, output, auth, after);
+  }
+
+  /**
+   * Respond with the fetched page, writing it straight to the response.
+   * @see #get(Request, Response, boolean, String, Integer)
+   */
+  protected Object respond(
+    Request request,
+    Response response,
+    GetQuestionsOutput output,
+    boolean auth,
+    String after
+  ) {
+    var key = (auth ? "auth/" : "public/") + after + "/" + output.getLimit();
+
+    if (notModified(request, response, etag(output.getVersion(), key)))
+      return "";
+
+    logger.debug("Responding...");
 
     response.status(200);
 
-    return json.render(questions);
+    if (responseCache != null)
+      return this.writeCached(request, response, output, key);
+
+    // The page is written as it is read from the database, so nothing is returned to Spark.
+    // Having no content length, the response goes out chunked.
+    try (var questions = output.getQuestions()) {
+      this.writePage(questions, output.getLimit(), response.raw().getOutputStream());
+    }
+    catch (IOException e) {
+      logger.error("Failed to write response!", e);
+    }
+
+    logger.debug("Done.");
+
+    return "";
+  }
+
+
+  /**
+   * Complete the response asynchronously, once the handler's output is ready.
+   * The request is put in async mode and the request thread is released right away. When
+   * the future completes, the respond function runs in the completing thread, and the body
+   * it returns, if any, is written. Failures respond with 500.
+   * @param output   the handler's output
+   * @param respond  sets up the response for the output, returning the body as a route would
+   */
+  protected <T> Object async(
+    Request request,
+    Response response,
+    CompletableFuture<T> output,
+    Function<T, Object> respond
+  ) {
+    var context = request.raw().startAsync();
+    context.setTimeout(0); // The database operations have their own timeouts.
+
+    output.whenComplete((result, error) -> {
+      try {
+        Object body;
+        if (error != null) {
+          logger.error("Failed to handle request!", error);
+          response.type("application/json");
+          response.status(500);
+          body = Failed;
+        }
+        else
+          body = respond.apply(result);
+
+        var raw = (HttpServletResponse) context.getResponse();
+        if (body instanceof String && !((String) body).isEmpty() && !raw.isCommitted()) {
+          var bytes = ((String) body).getBytes(StandardCharsets.UTF_8);
+          raw.setContentLength(bytes.length);
+          raw.getOutputStream().write(bytes);
+        }
+      }
+      catch (IOException | RuntimeException e) {
+        logger.error("Failed to write response!", e);
+      }
+      finally {
+        context.complete();
+      }
+    });
+
+    return "";
+  }
+
+
+  /**
+   * Respond with the cached rendering of the page, rendering it if out of date.
+   * The gzip copy is sent if the client accepts it.
+   * @param key  the page's cache key
+   */
+  protected Object writeCached(
+    Request request,
+    Response response,
+    GetQuestionsOutput output,
+    String key
+  ) {
+    var entry = responseCache.get(
+      key,
+      output.getVersion(),
+      out -> {
+        logger.debug("Rendering page {}", key);
+        try (var questions = output.getQuestions()) {
+          this.writePage(questions, output.getLimit(), out);
+        }
+      }
+    );
+
+    var acceptEncoding = request.headers("Accept-Encoding");
+    var gzip = entry.gzip != null
+      && acceptEncoding != null
+      && acceptEncoding.contains("gzip");
+
+    var body = gzip ? entry.gzip : entry.body;
+
+    response.header("ETag", etag(entry.version, key)); // The entry may be newer.
+    response.header("Vary", "Accept-Encoding");
+    if (gzip)
+      response.header("Content-Encoding", "gzip");
+
+    try {
+      var raw = response.raw();
+      raw.setContentLength(body.length);
+      raw.getOutputStream().write(body);
+      raw.flushBuffer(); // Commit, so that Spark won't touch the body (nor gzip it again).
+    }
+    catch (IOException e) {
+      logger.error("Failed to write response!", e);
+    }
+
+    logger.debug("Done.");
+
+    return "";
+  }
+
+
+  /**
+   * Write a page of questions in the format {"questions": [...], "next": "cursor"}.
+   * The questions are rendered one by one as the stream is consumed.
+   * @param questions  the page, possibly with an extra question signaling the next page
+   * @param limit      the page size
+   * @throws IOException  if the output couldn't be written
+   */
+  protected void writePage(Stream<Question> questions, int limit, OutputStream out)
+    throws IOException
+  {
+    var writer = json.writer(out);
+
+    writer.beginObject();
+    writer.name("questions");
+    writer.beginArray();
+
+    String next = null;
+    Question last = null;
+    var count = 0;
+
+    var iterator = questions.iterator();
+    while (iterator.hasNext()) {
+      var question = iterator.next();
+
+      if (count == limit) { // The extra question: there is a next page.
+        next = last.id;
+        break;
+      }
+
+      json.render(question, writer);
+      last = question;
+      count++;
+    }
+
+    writer.endArray();
+
+    if (next != null)
+      writer.name("next").value(next);
+
+    writer.endObject();
+    writer.flush();
+  }
+
+
+  /**
+   * Export endpoint: stream every question, statements included, as newline delimited json.
+   * Questions are written as they are read from the database, in batches of the optional
+   * 'batchSize' query parameter. The response is gzip encoded if the client accepts it.
+   * This endpoint is for authorized access only.
+   */
+  protected Object export(Request request, Response response) {
+    logger.debug("Received questions export:");
+
+    var newToken = request.queryParams("token");
+
+    if (!authorized(newToken)) {
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
+      response.type("application/json");
+      response.status(403);
+      return Unauthorized;
+    }
+
+    Integer batchSize = null;
+    var batchSizeParam = request.queryParams("batchSize");
+    if (batchSizeParam != null) {
+      try {
+        batchSize = Integer.valueOf(batchSizeParam);
+      } catch (NumberFormatException e) {
+        batchSize = 0;
+      }
+
+      if (batchSize <= 0) {
+        if (invalidLog.sample())
+          logger.error("Invalid batch size: {}", batchSizeParam);
+        response.type("application/json");
+        response.status(400);
+        return Invalid;
+      }
+    }
+
+    var acceptEncoding = request.headers("Accept-Encoding");
+    var gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+    ExportQuestionsInput input = new ExportQuestionsInput(batchSize);
+    IExportQuestionsHandler handler = exportQuestionsHandler;
+    ExportQuestionsOutput output;
+    var span = tracer.start("handler.exportQuestions");
+    try {
+      output = handler.handle(input);
+    }
+    finally {
+      span.close();
+    }
+
+    response.type("application/x-ndjson");
+    response.status(200);
+    if (gzip)
+      response.header("Content-Encoding", "gzip");
+
+    var count = 0L;
+    var raw = response.raw();
+    try (var questions = output.getQuestions()) {
+      OutputStream out = raw.getOutputStream();
+      if (gzip)
+        out = new GZIPOutputStream(out, true);
+
+      var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+      var iterator = questions.iterator();
+      while (iterator.hasNext()) {
+        json.render(iterator.next(), writer);
+        writer.write('\n');
+        count++;
+      }
+
+      writer.flush();
+      if (gzip)
+        ((GZIPOutputStream) out).finish();
+
+      raw.flushBuffer(); // Commit, so that Spark won't touch the body.
+    }
+    catch (IOException e) {
+      logger.error("Failed to write export!", e);
+    }
+
+    logger.info("Exported " + count + " questions.");
+
+    return "";
   }
 
 
@@ -173,51 +742,115 @@ protected Object get(Response response, String id, boolean auth) {
    */
   protected Object post(Request request, Response response) {
     String body = request.body();
-    if (logger.isInfoEnabled()) {
-      logger.info("Received questions post:" + body);
-    }
+    logger.debug("Received questions post: {}", Lazy.abbreviate(body));
 
     response.type("application/json");
 
     var newToken = request.queryParams("token");
 
-    if (!authorized(newToken)) {          
-    if (logger.isInfoEnabled()) {
-      logger.info("Unauthorized token: " + newToken);
-    }
+    if (!authorized(newToken)) {
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
       response.status(403);
       return Unauthorized;
     }
 
 
-    if("false".equals(System.getenv("MULTIPLE_CHOICE")) && "false".equals(System.getenv("OPEN"))) {
+    var config = Config.getInstance();
+    if(!config.multipleChoice && !config.open) {
       response.status(403);
       return Invalid;
     }
   
 		CreateQuestionInput input = new CreateQuestionInput(body);
-		ICreateQuestionHandler handler = new CreateQuestionHandler();
+		ICreateQuestionHandler handler = createQuestionHandler;
 		CreateQuestionOutput output;
+    var span = tracer.start("handler.createQuestion");
     try {
       output = handler.handle(input);
-      logger.info("Parsed question");
-      logger.info("Adding question.");
+      logger.debug("Parsed question");
+      logger.debug("Adding question.");
     } catch(Exception e) {
-      logger.error("Invalid request payload!", e);
+      if (invalidLog.sample())
+        logger.error("Invalid request payload!", e);
       response.status(400);
       return Invalid;
     }
+    finally {
+      span.close();
+    }
 
     response.status(
 			output.isCreated() ? 200
                : 400
     );
 
-    logger.info("Done. Responding...");
+    logger.debug("Done. Responding...");
 
     return output.isCreated() ? Ok : Invalid;
   }
 
+  /**
+   * Batch post endpoint: add many questions in the database at once.
+   * The questions must be supplied in the request's body, either as a json array, or as
+   * newline delimited json if the content type is 'application/x-ndjson'.
+   * Each question is validated as in the post endpoint, and the response reports, for
+   * each question in order, its new id or why it wasn't added.
+   * This endpoint is for authorized access only.
+   */
+  protected Object postBatch(Request request, Response response) {
+    logger.debug("Received questions batch post.");
+
+    response.type("application/json");
+
+    var newToken = request.queryParams("token");
+
+    if (!authorized(newToken)) {
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
+      response.status(403);
+      return Unauthorized;
+    }
+
+    var config = Config.getInstance();
+    if(!config.multipleChoice && !config.open) {
+      response.status(403);
+      return Invalid;
+    }
+
+    var contentType = request.contentType();
+    var ndjson = contentType != null && contentType.contains("ndjson");
+
+    CreateQuestionsBatchInput input = new CreateQuestionsBatchInput(request.body(), ndjson);
+    ICreateQuestionsBatchHandler handler = createQuestionsBatchHandler;
+    CreateQuestionsBatchOutput output;
+    var span = tracer.start("handler.createQuestionsBatch");
+    try {
+      output = handler.handle(input);
+    } catch(Exception | Error e) {
+      if (invalidLog.sample())
+        logger.error("Invalid request payload!", e);
+      response.status(400);
+      return Invalid;
+    }
+    finally {
+      span.close();
+    }
+
+    if (logger.isInfoEnabled()) {
+      logger.info(
+        "Added " + output.getCreatedCount() + " of " + output.getItems().size() + " questions."
+      );
+    }
+
+    logger.debug("Done. Responding...");
+
+    response.status(200);
+
+    return json.render(output.getItems());
+  }
+
+
   /**
    * Put endpoint: update a question in the database.
    * The question must be supplied in the request's body.
@@ -230,52 +863,112 @@ protected Object get(Response response, String id, boolean auth) {
     var id = request.queryParams("id");
     var newToken = request.queryParams("token");
 
-    if(logger.isInfoEnabled()) {
-      logger.info("Received questions put:" + body);
-    }
+    logger.debug("Received questions put: {}", Lazy.abbreviate(body));
 
     response.type("application/json");
 
 
     if (!authorized(newToken)) {
-      if(logger.isInfoEnabled()) {
-        logger.info("Unauthorized token: " + newToken);
-      }
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
       response.status(403);
       return Unauthorized;
     }
 
     UpdateQuestionInput input = new UpdateQuestionInput(id, body);
-		IUpdateQuestionHandler handler = new UpdateQuestionHandler();
+		IUpdateQuestionHandler handler = updateQuestionHandler;
 		UpdateQuestionOutput output;
+    var span = tracer.start("handler.updateQuestion");
     try {
       output = handler.handle(input);
-      logger.info("Parsed question");
-      logger.info("Adding question.");
+      logger.debug("Parsed question");
+      logger.debug("Adding question.");
     } catch(Exception e) {
-      logger.error("Invalid request payload!", e);
+      if (invalidLog.sample())
+        logger.error("Invalid request payload!", e);
       response.status(400);
       return Invalid;
     }
+    finally {
+      span.close();
+    }
 
     response.status(
 			output.isUpdated() ? 200
                : 400
     );
 
-    logger.info("Done. Responding...");
+    logger.debug("Done. Responding...");
 
     return output.isUpdated() ? Ok : Invalid;
   }
 
 
+  /**
+   * Patch endpoint: update some fields of a question in the database.
+   * The fields to change must be supplied in the request's body; absent fields are kept,
+   * and a null statement is removed. Only the given fields are validated and written.
+   * The question's id must be supplied through the 'id' query parameter.
+   * This endpoint is for authorized access only.
+   */
+  protected Object patch(Request request, Response response) {
+    String body = request.body();
+
+    var id = request.queryParams("id");
+    var newToken = request.queryParams("token");
+
+    logger.debug("Received questions patch: {}", Lazy.abbreviate(body));
+
+    response.type("application/json");
+
+    if (!authorized(newToken)) {
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
+      response.status(403);
+      return Unauthorized;
+    }
+
+    if (id == null || !ObjectId.isValid(id)) {
+      if (invalidLog.sample())
+        logger.error("Invalid id: {}", id);
+      response.status(400);
+      return Invalid;
+    }
+
+    PatchQuestionInput input = new PatchQuestionInput(id, body);
+    IPatchQuestionHandler handler = patchQuestionHandler;
+    PatchQuestionOutput output;
+    var span = tracer.start("handler.patchQuestion");
+    try {
+      output = handler.handle(input);
+    } catch(Exception | Error e) {
+      if (invalidLog.sample())
+        logger.error("Invalid request payload!", e);
+      response.status(400);
+      return Invalid;
+    }
+    finally {
+      span.close();
+    }
+
+    response.status(
+      output.isPatched() ? 200
+               : 400
+    );
+
+    logger.debug("Done. Responding...");
+
+    return output.isPatched() ? Ok : Invalid;
+  }
+
+
   /**
    * Delete endpoint: remove a question from the database.
    * The question's id must be supplied through the 'id' query parameter.
    * This endpoint is for authorized access only.
    */
   protected Object delete(Request request, Response response) {
-    logger.info("Received questions delete:");
+    logger.debug("Received questions delete:");
 
     response.type("application/json");
 
@@ -283,29 +976,34 @@ protected Object get(Response response, String id, boolean auth) {
     var newToken = request.queryParams("token");
 
     if (!authorized(newToken)) {
-      if(logger.isInfoEnabled()) {
-        logger.info("Unauthorized token: " + newToken);
-      }
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
       response.status(403);
       return Unauthorized;
     }
 
     if (id == null) {
-      logger.error("Invalid request!");
+      if (invalidLog.sample())
+        logger.error("Invalid request!");
       response.status(400);
       return Invalid;
     }
 
-    if(logger.isInfoEnabled()) {
-      logger.info("Deleting question " + id);
-    }
+    logger.debug("Deleting question {}", id);
 
 		DeleteQuestionInput input = new DeleteQuestionInput(id);
-		IDeleteQuestionHandler handler = new DeleteQuestionHandler();
-		DeleteQuestionOutput output = handler.handle(input);
+		IDeleteQuestionHandler handler = deleteQuestionHandler;
+		DeleteQuestionOutput output;
+    var span = tracer.start("handler.deleteQuestion");
+    try {
+      output = handler.handle(input);
+    }
+    finally {
+      span.close();
+    }
 
 
-    logger.info("Done. Responding...");
+    logger.debug("Done. Responding...");
 
     response.status(
       output.isDeleted() ? 200
@@ -314,4 +1012,54 @@ protected Object get(Response response, String id, boolean auth) {
 
     return output.isDeleted() ? Ok : Invalid;
   }
+
+
+  /**
+   * Batch delete endpoint: remove many questions from the database at once.
+   * The ids must be supplied in the request's body, as a json array. The response reports,
+   * for each id in order, whether it was deleted or why not.
+   * This endpoint is for authorized access only.
+   */
+  protected Object deleteBatch(Request request, Response response) {
+    logger.debug("Received questions batch delete.");
+
+    response.type("application/json");
+
+    var newToken = request.queryParams("token");
+
+    if (!authorized(newToken)) {
+      if (unauthorizedLog.sample())
+        logger.warn("Unauthorized request: {}", request.pathInfo());
+      response.status(403);
+      return Unauthorized;
+    }
+
+    DeleteQuestionsBatchInput input = new DeleteQuestionsBatchInput(request.body());
+    IDeleteQuestionsBatchHandler handler = deleteQuestionsBatchHandler;
+    DeleteQuestionsBatchOutput output;
+    var span = tracer.start("handler.deleteQuestionsBatch");
+    try {
+      output = handler.handle(input);
+    } catch(Exception | Error e) {
+      if (invalidLog.sample())
+        logger.error("Invalid request payload!", e);
+      response.status(400);
+      return Invalid;
+    }
+    finally {
+      span.close();
+    }
+
+    if (logger.isInfoEnabled()) {
+      logger.info(
+        "Deleted " + output.getDeletedCount() + " of " + output.getItems().size() + " questions."
+      );
+    }
+
+    logger.debug("Done. Responding...");
+
+    response.status(200);
+
+    return json.render(output.getItems());
+  }
 }
@@ -0,0 +1,127 @@
+package br.ufmg.engsoft.reprova.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import br.ufmg.engsoft.reprova.services.handlers.AsyncGetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.handlers.AsyncGetQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.handlers.CreateQuestionHandler;
+import br.ufmg.engsoft.reprova.services.handlers.CreateQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.handlers.DeleteQuestionHandler;
+import br.ufmg.engsoft.reprova.services.handlers.DeleteQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.handlers.ExportQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.handlers.GetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.handlers.GetQuestionsByIdsHandler;
+import br.ufmg.engsoft.reprova.services.handlers.GetQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.handlers.PatchQuestionHandler;
+import br.ufmg.engsoft.reprova.services.handlers.UpdateQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IAsyncGetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IAsyncGetQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.ICreateQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.ICreateQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IExportQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsByIdsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IPatchQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IUpdateQuestionHandler;
+
+
+/**
+ * Registry of handlers, by interface.
+ * Handlers are stateless and thread safe, so each is created once, on first lookup, and
+ * shared by all requests. Creation is deferred as handlers wire their DAO when loaded.
+ */
+public final class HandlerRegistry {
+  /**
+   * Singleton instance, with the application's handlers.
+   */
+  private static HandlerRegistry instance;
+
+  /**
+   * Handler factories, by interface.
+   */
+  private final Map<Class<?>, Supplier<?>> factories = new ConcurrentHashMap<>();
+
+  /**
+   * Created handlers, by interface.
+   */
+  private final Map<Class<?>, Object> handlers = new ConcurrentHashMap<>();
+
+
+
+  /**
+   * Create an empty registry.
+   */
+  public HandlerRegistry() { }
+
+  /**
+   * Returns the application's registry, with all the handlers registered.
+   */
+  public static synchronized HandlerRegistry getInstance() {
+    if (instance == null)
+      instance = new HandlerRegistry()
+        .register(IGetQuestionByIdHandler.class, GetQuestionByIdHandler::new)
+        .register(IGetQuestionsHandler.class, GetQuestionsHandler::new)
+        .register(IGetQuestionsByIdsHandler.class, GetQuestionsByIdsHandler::new)
+        .register(IAsyncGetQuestionByIdHandler.class, AsyncGetQuestionByIdHandler::new)
+        .register(IAsyncGetQuestionsHandler.class, AsyncGetQuestionsHandler::new)
+        .register(ICreateQuestionHandler.class, CreateQuestionHandler::new)
+        .register(ICreateQuestionsBatchHandler.class, CreateQuestionsBatchHandler::new)
+        .register(IUpdateQuestionHandler.class, UpdateQuestionHandler::new)
+        .register(IPatchQuestionHandler.class, PatchQuestionHandler::new)
+        .register(IDeleteQuestionHandler.class, DeleteQuestionHandler::new)
+        .register(IDeleteQuestionsBatchHandler.class, DeleteQuestionsBatchHandler::new)
+        .register(IExportQuestionsHandler.class, ExportQuestionsHandler::new);
+
+    return instance;
+  }
+
+
+  /**
+   * Register the handler for the given interface.
+   * @param type     the handler interface
+   * @param factory  creates the handler, called once
+   * @return This registry.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public <T> HandlerRegistry register(Class<T> type, Supplier<? extends T> factory) {
+    if (type == null)
+      throw new IllegalArgumentException("type mustn't be null");
+
+    if (factory == null)
+      throw new IllegalArgumentException("factory mustn't be null");
+
+    this.factories.put(type, factory);
+    this.handlers.remove(type);
+
+    return this;
+  }
+
+
+  /**
+   * Get the handler for the given interface, creating it on the first call.
+   * @param type  the handler interface
+   * @return The handler.
+   * @throws IllegalArgumentException  if any parameter is null, or no handler is registered
+   */
+  public <T> T get(Class<T> type) {
+    if (type == null)
+      throw new IllegalArgumentException("type mustn't be null");
+
+    var handler = this.handlers.get(type); // doesn't allocate, unlike computeIfAbsent.
+    if (handler == null)
+      handler = this.handlers.computeIfAbsent(type, key -> {
+        var factory = this.factories.get(key);
+        if (factory == null)
+          throw new IllegalArgumentException("no handler registered for " + key.getName());
+
+        return factory.get();
+      });
+
+    return type.cast(handler);
+  }
+}
@@ -2,7 +2,7 @@ package br.ufmg.engsoft.reprova.services;
 
 import java.util.Collection;
 
-import br.ufmg.engsoft.reprova.database.QuestionDAO;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
 import br.ufmg.engsoft.reprova.model.QuestionBuilder;
 import br.ufmg.engsoft.reprova.model.Question;
 import br.ufmg.engsoft.reprova.mime.json.Json;
@@ -16,7 +16,7 @@ public final class QuestionService {
   /**
    * DAO for Question.
    */
-  private static QuestionDAO dataAccess =  QuestionDAO.getInstance();
+  private static QuestionRepository dataAccess = QuestionRepository.getInstance();
   
     /**
    * Create a new question.
@@ -26,7 +26,7 @@ public final class QuestionService {
   public static boolean create(String body) {
     Question question;
     try {
-      question = new Json()
+      question = Json.getInstance()
       .parse(body, QuestionBuilder.class)
       .build();
     }
@@ -46,7 +46,7 @@ public final class QuestionService {
   public static boolean update(String id, String body) {
     Question question;
     try {
-      question = new Json()
+      question = Json.getInstance()
         .parse(body, QuestionBuilder.class)
         .build();
     }
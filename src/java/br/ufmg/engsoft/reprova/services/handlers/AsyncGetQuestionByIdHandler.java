@@ -0,0 +1,24 @@
+package br.ufmg.engsoft.reprova.services.handlers;
+
+import java.util.concurrent.CompletableFuture;
+
+import br.ufmg.engsoft.reprova.database.AsyncQuestionDAO;
+import br.ufmg.engsoft.reprova.services.input.GetQuestionByIdInput;
+import br.ufmg.engsoft.reprova.services.interfaces.IAsyncGetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionByIdOutput;
+
+public class AsyncGetQuestionByIdHandler implements IAsyncGetQuestionByIdHandler {
+
+	private static AsyncQuestionDAO dataAccess = AsyncQuestionDAO.getInstance();
+
+	@Override
+	public CompletableFuture<GetQuestionByIdOutput> handle(GetQuestionByIdInput input) {
+		// The version must be read before the question is fetched, so it's never older.
+		long version = dataAccess.version();
+
+		return dataAccess
+			.get(input.getId())
+			.thenApply(question -> new GetQuestionByIdOutput(question, version));
+	}
+
+}
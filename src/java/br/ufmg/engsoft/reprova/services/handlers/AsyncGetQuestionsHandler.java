@@ -0,0 +1,33 @@
+package br.ufmg.engsoft.reprova.services.handlers;
+
+import java.util.concurrent.CompletableFuture;
+
+import br.ufmg.engsoft.reprova.database.AsyncQuestionDAO;
+import br.ufmg.engsoft.reprova.services.input.GetQuestionsInput;
+import br.ufmg.engsoft.reprova.services.interfaces.IAsyncGetQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionsOutput;
+
+public class AsyncGetQuestionsHandler implements IAsyncGetQuestionsHandler {
+
+	private static AsyncQuestionDAO dataAccess = AsyncQuestionDAO.getInstance();
+
+	@Override
+	public CompletableFuture<GetQuestionsOutput> handle(GetQuestionsInput input) {
+		var limit = input.getLimit() == null
+			? GetQuestionsHandler.DefaultLimit
+			: Math.min(input.getLimit(), GetQuestionsHandler.MaxLimit);
+
+		// The version must be read before the page is fetched, so the page is never older.
+		var version = dataAccess.version();
+
+		Boolean pvt = input.getAuth() ? null : false;
+
+		// Fetch one extra question to know whether there is a next page.
+		// Unlike the synchronous handler, the page is fetched up front, as the future
+		// completes only when the query is done.
+		return dataAccess
+			.list(null, pvt, input.getAfter(), limit + 1)
+			.thenApply(questions -> new GetQuestionsOutput(questions::stream, limit, version));
+	}
+	
+}
@@ -0,0 +1,116 @@
+package br.ufmg.engsoft.reprova.services.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.OpenQuestion;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.services.input.CreateQuestionsBatchInput;
+import br.ufmg.engsoft.reprova.services.interfaces.ICreateQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.output.CreateQuestionsBatchOutput;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
+
+public class CreateQuestionsBatchHandler implements ICreateQuestionsBatchHandler {
+
+  private static QuestionRepository dataAccess = QuestionRepository.getInstance();
+
+  private static Tracer tracer = Tracer.getInstance();
+
+	/**
+	 * Parse and validate each question, then store the valid ones in bulk.
+	 * Invalid questions are reported in their items, and don't prevent the others.
+	 * The questions' ids, if any, are ignored.
+	 * @throws Error  if the body itself is malformed
+	 */
+	@Override
+	public CreateQuestionsBatchOutput handle(CreateQuestionsBatchInput input) {
+		var json = Json.getInstance();
+
+		// Either the ndjson lines, parsed one by one, or the array:
+		List<String> lines = null;
+		JsonArray array = null;
+		try {
+			if (input.isNdjson())
+				lines = input.getBody()
+					.lines()
+					.filter(line -> !line.isBlank())
+					.collect(Collectors.toList());
+			else
+				array = JsonParser.parseString(input.getBody()).getAsJsonArray();
+		}
+		catch (Exception e) {
+			throw new Error(e);
+		}
+
+		var count = lines != null ? lines.size() : array.size();
+
+		var items = new CreateQuestionsBatchOutput.Item[count];
+		var questions = new ArrayList<Question>(count);
+		var indexes = new ArrayList<Integer>(count);
+
+		for (var i = 0; i < count; i++) {
+			try {
+				var element = lines != null
+					? JsonParser.parseString(lines.get(i))
+					: array.get(i);
+
+				// Ids are always generated, so that exported questions may be imported back.
+				var builder = json.parse(element, QuestionBuilder.class).id(null);
+				Question question;
+				var span = tracer.start("question.build");
+				try {
+					question = builder.build();
+				}
+				finally {
+					span.close();
+				}
+
+				checkEnabled(question);
+
+				questions.add(question);
+				indexes.add(i);
+			}
+			catch (Exception | Error e) {
+				items[i] = new CreateQuestionsBatchOutput.Item(i, null, String.valueOf(e.getMessage()));
+			}
+		}
+
+		var results = dataAccess.addAll(questions);
+
+		for (var j = 0; j < results.size(); j++) {
+			var i = indexes.get(j);
+			var result = results.get(j);
+			items[i] = new CreateQuestionsBatchOutput.Item(i, result.isOk() ? result.id : null, result.error);
+		}
+
+		return new CreateQuestionsBatchOutput(List.of(items));
+	}
+
+	/**
+	 * Check the question's type is enabled, as in CreateQuestionHandler.
+	 * @throws Error  if it isn't
+	 */
+	protected static void checkEnabled(Question question) {
+		var config = Config.getInstance();
+		if(!config.multipleChoice
+			&& question instanceof MultipleChoiceQuestion
+		) {
+			throw new Error("Suas configurações não te dão acesso a esta funcionalidade.");
+		}
+		if(!config.open
+			&& question instanceof OpenQuestion
+		) {
+			throw new Error("Suas configurações não te dão acesso a esta funcionalidade.");
+		}
+	}
+	
+}
@@ -1,13 +1,13 @@
 package br.ufmg.engsoft.reprova.services.handlers;
 
-import br.ufmg.engsoft.reprova.database.QuestionDAO;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
 import br.ufmg.engsoft.reprova.services.input.DeleteQuestionInput;
 import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionHandler;
 import br.ufmg.engsoft.reprova.services.output.DeleteQuestionOutput;
 
 public class DeleteQuestionHandler implements IDeleteQuestionHandler {
 
-	private static QuestionDAO dataAccess =  QuestionDAO.getInstance();
+	private static QuestionRepository dataAccess = QuestionRepository.getInstance();
 
 	@Override
 	public DeleteQuestionOutput handle(DeleteQuestionInput input) {
@@ -0,0 +1,40 @@
+package br.ufmg.engsoft.reprova.services.handlers;
+
+import java.util.ArrayList;
+
+import com.google.gson.JsonParser;
+
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.services.input.DeleteQuestionsBatchInput;
+import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.output.DeleteQuestionsBatchOutput;
+
+public class DeleteQuestionsBatchHandler implements IDeleteQuestionsBatchHandler {
+
+  private static QuestionRepository dataAccess = QuestionRepository.getInstance();
+
+	/**
+	 * Parse the ids, then delete them all at once.
+	 * @throws Error  if the body isn't a json array of strings
+	 */
+	@Override
+	public DeleteQuestionsBatchOutput handle(DeleteQuestionsBatchInput input) {
+		var ids = new ArrayList<String>();
+		try {
+			for (var element : JsonParser.parseString(input.getBody()).getAsJsonArray())
+				ids.add(element.isJsonNull() ? null : element.getAsString());
+		}
+		catch (Exception e) {
+			throw new Error(e);
+		}
+
+		var results = dataAccess.removeAll(ids);
+
+		var items = new ArrayList<DeleteQuestionsBatchOutput.Item>(results.size());
+		for (var i = 0; i < results.size(); i++)
+			items.add(new DeleteQuestionsBatchOutput.Item(i, ids.get(i), results.get(i).error));
+
+		return new DeleteQuestionsBatchOutput(items);
+	}
+
+}
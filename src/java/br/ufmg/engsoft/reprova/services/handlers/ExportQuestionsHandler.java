@@ -0,0 +1,36 @@
+package br.ufmg.engsoft.reprova.services.handlers;
+
+
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.services.input.ExportQuestionsInput;
+import br.ufmg.engsoft.reprova.services.interfaces.IExportQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.output.ExportQuestionsOutput;
+
+public class ExportQuestionsHandler implements IExportQuestionsHandler {
+
+	/**
+	 * Number of questions fetched per round trip when the request doesn't specify it, from
+	 * 'REPROVA_EXPORT_BATCH' environment variable. Defaults to 500.
+	 */
+	public static final int DefaultBatchSize = Integer.parseInt(
+		Config.getInstance().get("REPROVA_EXPORT_BATCH", "500")
+	);
+
+	/**
+	 * Largest batch a request may ask for.
+	 */
+	public static final int MaxBatchSize = 10000;
+
+	private static QuestionRepository dataAccess = QuestionRepository.getInstance();
+
+	@Override
+	public ExportQuestionsOutput handle(ExportQuestionsInput input) {
+		var batchSize = input.getBatchSize() == null
+			? DefaultBatchSize
+			: Math.min(input.getBatchSize(), MaxBatchSize);
+
+		return new ExportQuestionsOutput(dataAccess.export(batchSize));
+	}
+
+}
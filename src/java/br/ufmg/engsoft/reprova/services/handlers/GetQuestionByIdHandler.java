@@ -2,19 +2,22 @@ package br.ufmg.engsoft.reprova.services.handlers;
 
 import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionByIdHandler;
 import br.ufmg.engsoft.reprova.services.output.GetQuestionByIdOutput;
-import br.ufmg.engsoft.reprova.database.QuestionDAO;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
 import br.ufmg.engsoft.reprova.model.Question;
 import br.ufmg.engsoft.reprova.services.input.GetQuestionByIdInput;
 
 public class GetQuestionByIdHandler implements IGetQuestionByIdHandler {
 
-	private static QuestionDAO dataAccess =  QuestionDAO.getInstance();
+	private static QuestionRepository dataAccess = QuestionRepository.getInstance();
 
 	@Override
 	public GetQuestionByIdOutput handle(GetQuestionByIdInput input) {
+		// The version must be read before the question is fetched, so it's never older.
+		long version = dataAccess.version();
+
 		Question question = dataAccess.get(input.getId());
 
-    return new GetQuestionByIdOutput(question);
+    return new GetQuestionByIdOutput(question, version);
 	}
 
 }
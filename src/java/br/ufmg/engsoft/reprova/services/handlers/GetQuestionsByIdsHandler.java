@@ -0,0 +1,48 @@
+package br.ufmg.engsoft.reprova.services.handlers;
+
+import java.util.ArrayList;
+
+import org.bson.types.ObjectId;
+
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.services.input.GetQuestionsByIdsInput;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsByIdsHandler;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionsByIdsOutput;
+
+public class GetQuestionsByIdsHandler implements IGetQuestionsByIdsHandler {
+
+	private static QuestionRepository dataAccess = QuestionRepository.getInstance();
+
+	/**
+	 * Fetch all the questions at once, then hide the private ones if not authorized.
+	 * @throws Error  if more than GetQuestionsHandler.MaxLimit ids are requested
+	 */
+	@Override
+	public GetQuestionsByIdsOutput handle(GetQuestionsByIdsInput input) {
+		var ids = input.getIds();
+		if (ids.size() > GetQuestionsHandler.MaxLimit)
+			throw new Error("too many ids: " + ids.size());
+
+		// The version must be read before the questions are fetched, so they're never older.
+		var version = dataAccess.version();
+
+		var questions = dataAccess.getAll(ids);
+
+		var items = new ArrayList<GetQuestionsByIdsOutput.Item>(ids.size());
+		for (var i = 0; i < ids.size(); i++) {
+			var id = ids.get(i);
+			var question = questions.get(i);
+
+			String error = null;
+			if (question == null)
+				error = id == null || !ObjectId.isValid(id) ? "invalid id" : "no such question";
+			else if (question.pvt && !input.getAuth())
+				error = "unauthorized";
+
+			items.add(new GetQuestionsByIdsOutput.Item(i, id, error == null ? question : null, error));
+		}
+
+		return new GetQuestionsByIdsOutput(items, version);
+	}
+
+}
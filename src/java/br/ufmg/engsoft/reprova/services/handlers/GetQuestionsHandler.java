@@ -1,22 +1,42 @@
 package br.ufmg.engsoft.reprova.services.handlers;
 
-import java.util.Collection;
-
-import br.ufmg.engsoft.reprova.database.QuestionDAO;
-import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
 import br.ufmg.engsoft.reprova.services.input.GetQuestionsInput;
 import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsHandler;
 import br.ufmg.engsoft.reprova.services.output.GetQuestionsOutput;
 
 public class GetQuestionsHandler implements IGetQuestionsHandler {
 
-	private static QuestionDAO dataAccess =  QuestionDAO.getInstance();
+	/**
+	 * Page size used when the request doesn't specify one.
+	 */
+	public static final int DefaultLimit = 100;
+
+	/**
+	 * Largest page size a request may ask for.
+	 */
+	public static final int MaxLimit = 1000;
+
+	private static QuestionRepository dataAccess = QuestionRepository.getInstance();
 
 	@Override
 	public GetQuestionsOutput handle(GetQuestionsInput input) {
-		Collection<Question> questions = dataAccess.list(null, input.getAuth() ? null : false);
+		var limit = input.getLimit() == null
+			? DefaultLimit
+			: Math.min(input.getLimit(), MaxLimit);
+
+		// The version must be read before the page is fetched, so the page is never older.
+		var version = dataAccess.version();
+
+		Boolean pvt = input.getAuth() ? null : false;
+		var after = input.getAfter();
 
-    return new GetQuestionsOutput(questions);
+		// Fetch one extra question to know whether there is a next page:
+		return new GetQuestionsOutput(
+			() -> dataAccess.stream(null, pvt, after, limit + 1),
+			limit,
+			version
+		);
 	}
 	
 }
@@ -0,0 +1,38 @@
+package br.ufmg.engsoft.reprova.services.handlers;
+
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
+import br.ufmg.engsoft.reprova.services.input.PatchQuestionInput;
+import br.ufmg.engsoft.reprova.services.interfaces.IPatchQuestionHandler;
+import br.ufmg.engsoft.reprova.services.output.PatchQuestionOutput;
+
+public class PatchQuestionHandler implements IPatchQuestionHandler {
+
+	private static QuestionRepository dataAccess = QuestionRepository.getInstance();
+
+	/**
+	 * Parse and validate the patch, then apply it to the stored question.
+	 * @throws Error  if the patch is malformed or invalid
+	 */
+	@Override
+	public PatchQuestionOutput handle(PatchQuestionInput input) {
+		QuestionPatch patch;
+		try {
+			patch = Json.getInstance()
+				.parse(input.getBody(), QuestionPatch.class);
+
+			if (patch == null)
+				throw new IllegalArgumentException("patch mustn't be null");
+
+			patch.validate();
+		}
+		catch (Exception e) {
+			throw new Error(e);
+		}
+
+		boolean patched = dataAccess.patch(input.getId(), patch);
+		return new PatchQuestionOutput(patched);
+	}
+	
+}
@@ -1,6 +1,7 @@
 package br.ufmg.engsoft.reprova.services.handlers;
 
-import br.ufmg.engsoft.reprova.database.QuestionDAO;
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
 import br.ufmg.engsoft.reprova.mime.json.Json;
 import br.ufmg.engsoft.reprova.model.QuestionBuilder;
 import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
@@ -9,25 +10,34 @@ import br.ufmg.engsoft.reprova.model.Question;
 import br.ufmg.engsoft.reprova.services.input.UpdateQuestionInput;
 import br.ufmg.engsoft.reprova.services.interfaces.IUpdateQuestionHandler;
 import br.ufmg.engsoft.reprova.services.output.UpdateQuestionOutput;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
 
 public class UpdateQuestionHandler implements IUpdateQuestionHandler {
 
-	private static QuestionDAO dataAccess =  QuestionDAO.getInstance();
+	private static QuestionRepository dataAccess = QuestionRepository.getInstance();
+
+	private static Tracer tracer = Tracer.getInstance();
 	
 	@Override
 	public UpdateQuestionOutput handle(UpdateQuestionInput input) {
 		Question question;
     try {
-      question = new Json()
-        .parse(input.getBody(), QuestionBuilder.class)
-        .build();
+      var builder = Json.getInstance().parse(input.getBody(), QuestionBuilder.class);
+      var span = tracer.start("question.build");
+      try {
+        question = builder.build();
+      }
+      finally {
+        span.close();
+      }
     
-      if(System.getenv("MULTIPLE_CHOICE") == "false" 
+      var config = Config.getInstance();
+      if(!config.multipleChoice
         && question  instanceof MultipleChoiceQuestion
       ) {
         throw new Error("Suas configurações não te dão acesso a esta funcionalidade.");
       }
-      if(System.getenv("OPEN") == "false"
+      if(!config.open
         && question  instanceof OpenQuestion
       ) {
         throw new Error("Suas configurações não te dão acesso a esta funcionalidade.");
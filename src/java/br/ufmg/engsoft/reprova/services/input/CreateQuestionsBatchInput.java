@@ -0,0 +1,33 @@
+package br.ufmg.engsoft.reprova.services.input;
+
+public class CreateQuestionsBatchInput {
+
+	private String body;
+	private boolean ndjson;
+
+	/**
+	 * @param body    the questions, as a json array or as newline delimited json
+	 * @param ndjson  whether the body is newline delimited json
+	 */
+	public CreateQuestionsBatchInput(String body, boolean ndjson) {
+		this.body = body;
+		this.ndjson = ndjson;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	public void setBody(String body) {
+		this.body = body;
+	}
+
+	public boolean isNdjson() {
+		return ndjson;
+	}
+
+	public void setNdjson(boolean ndjson) {
+		this.ndjson = ndjson;
+	}
+
+}
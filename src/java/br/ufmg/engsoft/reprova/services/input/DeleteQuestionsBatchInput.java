@@ -0,0 +1,22 @@
+package br.ufmg.engsoft.reprova.services.input;
+
+public class DeleteQuestionsBatchInput {
+
+	private String body;
+
+	/**
+	 * @param body  the ids, as a json array of strings
+	 */
+	public DeleteQuestionsBatchInput(String body) {
+		this.body = body;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	public void setBody(String body) {
+		this.body = body;
+	}
+
+}
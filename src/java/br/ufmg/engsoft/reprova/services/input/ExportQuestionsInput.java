@@ -0,0 +1,23 @@
+package br.ufmg.engsoft.reprova.services.input;
+
+public class ExportQuestionsInput {
+
+	private Integer batchSize;
+
+	/**
+	 * @param batchSize  the number of questions fetched per round trip, or null for the
+	 *                   default
+	 */
+	public ExportQuestionsInput(Integer batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public Integer getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(Integer batchSize) {
+		this.batchSize = batchSize;
+	}
+
+}
@@ -0,0 +1,35 @@
+package br.ufmg.engsoft.reprova.services.input;
+
+import java.util.List;
+
+public class GetQuestionsByIdsInput {
+
+	private List<String> ids;
+	private boolean auth;
+
+	/**
+	 * @param ids   the questions ids
+	 * @param auth  whether private questions may be returned
+	 */
+	public GetQuestionsByIdsInput(List<String> ids, boolean auth) {
+		this.ids = ids;
+		this.auth = auth;
+	}
+
+	public List<String> getIds() {
+		return ids;
+	}
+
+	public void setIds(List<String> ids) {
+		this.ids = ids;
+	}
+
+	public boolean getAuth() {
+		return auth;
+	}
+
+	public void setAuth(boolean auth) {
+		this.auth = auth;
+	}
+
+}
@@ -3,9 +3,17 @@ package br.ufmg.engsoft.reprova.services.input;
 public class GetQuestionsInput {
 
 	private boolean auth;
+	private String after;
+	private Integer limit;
 
 	public GetQuestionsInput(boolean auth) {
+		this(auth, null, null);
+	}
+
+	public GetQuestionsInput(boolean auth, String after, Integer limit) {
 		this.auth = auth;
+		this.after = after;
+		this.limit = limit;
 	}
 
 	public boolean getAuth() {
@@ -16,4 +24,20 @@ public class GetQuestionsInput {
 		this.auth = auth;
 	}
 
+	public String getAfter() {
+		return after;
+	}
+
+	public void setAfter(String after) {
+		this.after = after;
+	}
+
+	public Integer getLimit() {
+		return limit;
+	}
+
+	public void setLimit(Integer limit) {
+		this.limit = limit;
+	}
+
 }
@@ -0,0 +1,29 @@
+package br.ufmg.engsoft.reprova.services.input;
+
+public class PatchQuestionInput {
+
+	private String id;
+	private String body;
+
+	public PatchQuestionInput(String id, String body) {
+		this.id = id;
+		this.body = body;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	public void setBody(String body) {
+		this.body = body;
+	}
+	
+}
@@ -0,0 +1,8 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import br.ufmg.engsoft.reprova.services.input.GetQuestionByIdInput;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionByIdOutput;
+
+public interface IAsyncGetQuestionByIdHandler extends IAsyncHandler<GetQuestionByIdInput, GetQuestionByIdOutput> {
+
+}
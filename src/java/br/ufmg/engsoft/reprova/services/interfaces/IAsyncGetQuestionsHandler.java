@@ -0,0 +1,8 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import br.ufmg.engsoft.reprova.services.input.GetQuestionsInput;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionsOutput;
+
+public interface IAsyncGetQuestionsHandler extends IAsyncHandler<GetQuestionsInput, GetQuestionsOutput> {
+
+}
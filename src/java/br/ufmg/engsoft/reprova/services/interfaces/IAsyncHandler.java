@@ -0,0 +1,12 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handler that doesn't block: the output is delivered by the returned future.
+ */
+public interface IAsyncHandler<TInput,TOutput> {
+	
+	CompletableFuture<TOutput> handle(TInput input);
+	
+}
@@ -0,0 +1,8 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import br.ufmg.engsoft.reprova.services.input.CreateQuestionsBatchInput;
+import br.ufmg.engsoft.reprova.services.output.CreateQuestionsBatchOutput;
+
+public interface ICreateQuestionsBatchHandler extends IHandler<CreateQuestionsBatchInput, CreateQuestionsBatchOutput> {
+
+}
@@ -0,0 +1,8 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import br.ufmg.engsoft.reprova.services.input.DeleteQuestionsBatchInput;
+import br.ufmg.engsoft.reprova.services.output.DeleteQuestionsBatchOutput;
+
+public interface IDeleteQuestionsBatchHandler extends IHandler<DeleteQuestionsBatchInput, DeleteQuestionsBatchOutput> {
+
+}
@@ -0,0 +1,8 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import br.ufmg.engsoft.reprova.services.input.ExportQuestionsInput;
+import br.ufmg.engsoft.reprova.services.output.ExportQuestionsOutput;
+
+public interface IExportQuestionsHandler extends IHandler<ExportQuestionsInput, ExportQuestionsOutput> {
+
+}
@@ -0,0 +1,8 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import br.ufmg.engsoft.reprova.services.input.GetQuestionsByIdsInput;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionsByIdsOutput;
+
+public interface IGetQuestionsByIdsHandler extends IHandler<GetQuestionsByIdsInput, GetQuestionsByIdsOutput> {
+
+}
@@ -0,0 +1,8 @@
+package br.ufmg.engsoft.reprova.services.interfaces;
+
+import br.ufmg.engsoft.reprova.services.input.PatchQuestionInput;
+import br.ufmg.engsoft.reprova.services.output.PatchQuestionOutput;
+
+public interface IPatchQuestionHandler extends IHandler<PatchQuestionInput, PatchQuestionOutput> {
+
+}
@@ -0,0 +1,52 @@
+package br.ufmg.engsoft.reprova.services.output;
+
+import java.util.List;
+
+public class CreateQuestionsBatchOutput {
+
+	/**
+	 * The outcome for a question of the batch.
+	 */
+	public static class Item {
+		/**
+		 * The position of the question in the batch.
+		 */
+		public final int index;
+		/**
+		 * The id of the created question, or null.
+		 */
+		public final String id;
+		/**
+		 * Why the question wasn't created, or null if it was.
+		 */
+		public final String error;
+
+		public Item(int index, String id, String error) {
+			this.index = index;
+			this.id = id;
+			this.error = error;
+		}
+	}
+
+	private List<Item> items;
+
+	public CreateQuestionsBatchOutput(List<Item> items) {
+		this.items = items;
+	}
+
+	public List<Item> getItems() {
+		return items;
+	}
+
+	public void setItems(List<Item> items) {
+		this.items = items;
+	}
+
+	/**
+	 * How many questions were created.
+	 */
+	public long getCreatedCount() {
+		return items.stream().filter(item -> item.error == null).count();
+	}
+
+}
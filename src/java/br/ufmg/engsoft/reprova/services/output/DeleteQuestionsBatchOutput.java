@@ -0,0 +1,52 @@
+package br.ufmg.engsoft.reprova.services.output;
+
+import java.util.List;
+
+public class DeleteQuestionsBatchOutput {
+
+	/**
+	 * The outcome for an id of the batch.
+	 */
+	public static class Item {
+		/**
+		 * The position of the id in the batch.
+		 */
+		public final int index;
+		/**
+		 * The id.
+		 */
+		public final String id;
+		/**
+		 * Why the question wasn't deleted, or null if it was.
+		 */
+		public final String error;
+
+		public Item(int index, String id, String error) {
+			this.index = index;
+			this.id = id;
+			this.error = error;
+		}
+	}
+
+	private List<Item> items;
+
+	public DeleteQuestionsBatchOutput(List<Item> items) {
+		this.items = items;
+	}
+
+	public List<Item> getItems() {
+		return items;
+	}
+
+	public void setItems(List<Item> items) {
+		this.items = items;
+	}
+
+	/**
+	 * How many questions were deleted.
+	 */
+	public long getDeletedCount() {
+		return items.stream().filter(item -> item.error == null).count();
+	}
+
+}
@@ -0,0 +1,29 @@
+package br.ufmg.engsoft.reprova.services.output;
+
+import java.util.stream.Stream;
+
+import br.ufmg.engsoft.reprova.model.Question;
+
+public class ExportQuestionsOutput {
+
+	private Stream<Question> questions;
+
+	/**
+	 * @param questions  all the questions, lazily fetched
+	 */
+	public ExportQuestionsOutput(Stream<Question> questions) {
+		this.questions = questions;
+	}
+
+	/**
+	 * All the questions. The stream must be closed after consumed.
+	 */
+	public Stream<Question> getQuestions() {
+		return questions;
+	}
+
+	public void setQuestions(Stream<Question> questions) {
+		this.questions = questions;
+	}
+
+}
@@ -5,9 +5,19 @@ import br.ufmg.engsoft.reprova.model.Question;
 public class GetQuestionByIdOutput {
 
 	private Question question;
+	private long version;
 
 	public GetQuestionByIdOutput(Question question) {
+		this(question, 0);
+	}
+
+	/**
+	 * @param question  the question, or null if not found
+	 * @param version   the version of the data the question was fetched from
+	 */
+	public GetQuestionByIdOutput(Question question, long version) {
 		this.question = question;
+		this.version = version;
 	}
 
 	public Question getQuestion() {
@@ -18,5 +28,13 @@ public class GetQuestionByIdOutput {
 		this.question = question;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 
 }
@@ -0,0 +1,73 @@
+package br.ufmg.engsoft.reprova.services.output;
+
+import java.util.List;
+
+import br.ufmg.engsoft.reprova.model.Question;
+
+public class GetQuestionsByIdsOutput {
+
+	/**
+	 * The outcome for an id of the request.
+	 */
+	public static class Item {
+		/**
+		 * The position of the id in the request.
+		 */
+		public final int index;
+		/**
+		 * The id.
+		 */
+		public final String id;
+		/**
+		 * The question, or null.
+		 */
+		public final Question question;
+		/**
+		 * Why the question wasn't returned, or null if it was.
+		 */
+		public final String error;
+
+		public Item(int index, String id, Question question, String error) {
+			this.index = index;
+			this.id = id;
+			this.question = question;
+			this.error = error;
+		}
+	}
+
+	private List<Item> items;
+	private long version;
+
+	/**
+	 * @param items    the outcome for each id, in order
+	 * @param version  the version of the data the questions were fetched from
+	 */
+	public GetQuestionsByIdsOutput(List<Item> items, long version) {
+		this.items = items;
+		this.version = version;
+	}
+
+	public List<Item> getItems() {
+		return items;
+	}
+
+	public void setItems(List<Item> items) {
+		this.items = items;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	/**
+	 * How many questions were found.
+	 */
+	public long getFoundCount() {
+		return items.stream().filter(item -> item.error == null).count();
+	}
+
+}
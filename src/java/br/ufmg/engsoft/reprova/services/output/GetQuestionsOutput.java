@@ -1,23 +1,55 @@
 package br.ufmg.engsoft.reprova.services.output;
 
-import java.util.Collection;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import br.ufmg.engsoft.reprova.model.Question;
 
 public class GetQuestionsOutput {
 	
-	private Collection<Question> questions;
+	private Supplier<Stream<Question>> questions;
+	private int limit;
+	private long version;
 
-	public GetQuestionsOutput(Collection<Question> questions) {
+	/**
+	 * @param questions  fetches the page, lazily; it may hold one question beyond the
+	 *                   limit, which signals there is a next page
+	 * @param limit      the page size
+	 * @param version    the version of the data the page is fetched from
+	 */
+	public GetQuestionsOutput(Supplier<Stream<Question>> questions, int limit, long version) {
 		this.questions = questions;
+		this.limit = limit;
+		this.version = version;
 	}
 
-	public Collection<Question> getQuestions() {
-		return questions;
+	/**
+	 * Fetch the questions in the page. The query only runs when this is called, so callers
+	 * holding an up to date rendering of the page needn't call it.
+	 * The stream must be closed after consumed.
+	 */
+	public Stream<Question> getQuestions() {
+		return questions.get();
 	}
 
-	public void setQuestions(Collection<Question> questions) {
+	public void setQuestions(Supplier<Stream<Question>> questions) {
 		this.questions = questions;
 	}
 
+	public int getLimit() {
+		return limit;
+	}
+
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 }
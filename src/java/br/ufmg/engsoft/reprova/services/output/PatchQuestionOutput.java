@@ -0,0 +1,15 @@
+package br.ufmg.engsoft.reprova.services.output;
+
+public class PatchQuestionOutput {
+
+	boolean patched;
+
+	public PatchQuestionOutput(boolean patched) {
+		this.patched = patched;
+	}
+
+	public boolean isPatched() {
+		return patched;
+	}
+	
+}
@@ -0,0 +1,210 @@
+package br.ufmg.engsoft.reprova.tracing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.stream.JsonWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import br.ufmg.engsoft.reprova.logging.LogSampler;
+
+
+/**
+ * Exports traces to a file, one OTLP/JSON ExportTraceServiceRequest per line, as the
+ * OpenTelemetry collector's file exporter does. The file can be replayed into a collector,
+ * or read by any tool that takes OTLP json.
+ * Traces are written by a background thread; if it falls behind, new traces are dropped
+ * rather than making requests wait.
+ */
+public class FileSpanExporter implements SpanExporter {
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+
+  protected static final LogSampler droppedLog =
+    new LogSampler(logger, Level.WARN, "Dropped trace");
+
+  /**
+   * Maximum number of traces waiting to be written.
+   */
+  protected static final int QueueSize = 1024;
+
+  /**
+   * Span kinds, as in OTLP.
+   */
+  protected static final int Internal = 1;
+  protected static final int Server = 2;
+
+  /**
+   * Marks the end of the queue.
+   */
+  protected static final List<Span> End = Collections.emptyList();
+
+  protected final Path file;
+
+  protected final BlockingQueue<List<Span>> queue = new ArrayBlockingQueue<>(QueueSize);
+
+  protected final Thread writer;
+
+
+
+  /**
+   * Basic constructor. Traces are appended to the given file, created if absent.
+   * @throws IllegalArgumentException  if any parameter is null
+   */
+  public FileSpanExporter(Path file) {
+    if (file == null)
+      throw new IllegalArgumentException("file mustn't be null");
+
+    this.file = file;
+
+    this.writer = new Thread(this::write, "trace-exporter");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+
+  @Override
+  public void export(List<Span> spans) {
+    if (!this.queue.offer(spans) && droppedLog.sample())
+      logger.warn("Dropped trace {}: export queue full.", spans.get(0).traceId());
+  }
+
+  /**
+   * Write the queued traces, and wait for the writer to finish.
+   */
+  @Override
+  public void close() {
+    try {
+      this.queue.put(End);
+      this.writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+
+  /**
+   * Writer thread: write traces as they come, flushing when the queue is empty.
+   */
+  protected void write() {
+    try (
+      var out = Files.newBufferedWriter(
+        this.file,
+        StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND
+      )
+    ) {
+      var batch = new ArrayList<List<Span>>();
+
+      while (true) {
+        batch.add(this.queue.take());
+        this.queue.drainTo(batch);
+
+        for (var spans : batch) {
+          if (spans == End) {
+            out.flush();
+            return;
+          }
+
+          write(out, spans);
+          out.write('\n');
+        }
+
+        batch.clear();
+        out.flush();
+      }
+    }
+    catch (IOException e) {
+      logger.error("Failed to write traces to " + this.file + "!", e);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+
+  /**
+   * Write a trace's spans as a single line OTLP/JSON export request.
+   * @throws IOException  if the writer fails
+   */
+  public static void write(Writer out, List<Span> spans) throws IOException {
+    var json = new JsonWriter(out);
+
+    json.beginObject();
+    json.name("resourceSpans").beginArray().beginObject();
+
+    json.name("resource").beginObject();
+    json.name("attributes").beginArray();
+    attribute(json, "service.name", "reprova");
+    json.endArray();
+    json.endObject();
+
+    json.name("scopeSpans").beginArray().beginObject();
+    json.name("scope").beginObject().name("name").value("br.ufmg.engsoft.reprova").endObject();
+
+    json.name("spans").beginArray();
+    for (var span : spans) {
+      json.beginObject();
+      json.name("traceId").value(span.traceId());
+      json.name("spanId").value(span.id);
+      if (span.parentId() != null)
+        json.name("parentSpanId").value(span.parentId());
+      json.name("name").value(span.name);
+      json.name("kind").value(span.parentId() == null ? Server : Internal);
+      // 64 bit integers are strings in OTLP/JSON.
+      json.name("startTimeUnixNano").value(Long.toString(span.startEpochNanos()));
+      json.name("endTimeUnixNano").value(Long.toString(span.endEpochNanos()));
+
+      json.name("attributes").beginArray();
+      var attributes = span.attributes();
+      for (var i = 0; i < attributes.size(); i += 2)
+        attribute(json, (String) attributes.get(i), attributes.get(i + 1));
+      json.endArray();
+
+      json.endObject();
+    }
+    json.endArray();
+
+    json.endObject().endArray();
+    json.endObject().endArray();
+    json.endObject();
+  }
+
+  /**
+   * Write an OTLP key value pair.
+   */
+  protected static void attribute(JsonWriter json, String name, Object value) throws IOException {
+    json.beginObject();
+    json.name("key").value(name);
+    json.name("value").beginObject();
+
+    if (value instanceof Integer || value instanceof Long)
+      json.name("intValue").value(value.toString());
+    else if (value instanceof Number)
+      json.name("doubleValue").value((Number) value);
+    else if (value instanceof Boolean)
+      json.name("boolValue").value((Boolean) value);
+    else
+      json.name("stringValue").value(String.valueOf(value));
+
+    json.endObject();
+    json.endObject();
+  }
+}
@@ -0,0 +1,152 @@
+package br.ufmg.engsoft.reprova.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * A timed operation in a trace.
+ * Spans are started by the Tracer, and must be closed in the thread that started them,
+ * usually with try-with-resources. Outside a trace, the tracer hands out the Noop span,
+ * which records nothing.
+ */
+public final class Span implements AutoCloseable {
+  /**
+   * The span that records nothing.
+   */
+  public static final Span Noop = new Span(null, null, null, 0);
+
+  /**
+   * The trace this span belongs to, null for Noop.
+   */
+  protected final Trace trace;
+
+  /**
+   * The enclosing span, null for the root.
+   */
+  protected final Span parent;
+
+  public final String name;
+  public final String id;
+
+  /**
+   * Start and end time, from System.nanoTime(). End is 0 while open.
+   */
+  protected final long start;
+  protected volatile long end;
+
+  /**
+   * Alternating attribute names and values, created on first use.
+   */
+  protected List<Object> attributes;
+
+
+
+  Span(Trace trace, Span parent, String name, long start) {
+    this.trace = trace;
+    this.parent = parent;
+    this.name = name;
+    this.id = trace == null ? null : Span.id(1);
+    this.start = start;
+  }
+
+  /**
+   * Random hex id of the given number of 64 bit words.
+   */
+  static String id(int words) {
+    var random = ThreadLocalRandom.current();
+    var id = new StringBuilder(16 * words);
+
+    for (var i = 0; i < words; i++) {
+      var hex = Long.toHexString(random.nextLong());
+      for (var pad = hex.length(); pad < 16; pad++)
+        id.append('0');
+      id.append(hex);
+    }
+
+    return id.toString();
+  }
+
+
+  /**
+   * Whether this span records anything. Use to skip computing attributes.
+   */
+  public boolean isRecording() {
+    return this.trace != null;
+  }
+
+  /**
+   * Set an attribute. Values are exported as strings, except for integers and booleans.
+   * @return This span.
+   */
+  public Span attribute(String name, Object value) {
+    if (this.trace == null)
+      return this;
+
+    synchronized (this) {
+      if (this.attributes == null)
+        this.attributes = new ArrayList<>(4);
+
+      this.attributes.add(name);
+      this.attributes.add(value);
+    }
+
+    return this;
+  }
+
+  /**
+   * End the span, restoring its parent as the current span.
+   * Ending a root span exports its trace. Ending twice has no effect.
+   */
+  @Override
+  public void close() {
+    if (this.trace == null || this.end != 0)
+      return;
+
+    this.end = System.nanoTime();
+    this.trace.ended(this);
+  }
+
+
+  /**
+   * The trace id, 32 hex characters, or null for Noop.
+   */
+  public String traceId() {
+    return this.trace == null ? null : this.trace.id;
+  }
+
+  /**
+   * The enclosing span's id, or null for the root.
+   */
+  public String parentId() {
+    return this.parent == null ? null : this.parent.id;
+  }
+
+  /**
+   * Start and end time in nanoseconds since the epoch.
+   */
+  public long startEpochNanos() {
+    return this.trace.epochOffset + this.start;
+  }
+
+  public long endEpochNanos() {
+    return this.trace.epochOffset + this.end;
+  }
+
+  /**
+   * The attributes, as alternating names and values.
+   */
+  public synchronized List<Object> attributes() {
+    return this.attributes == null
+      ? Collections.emptyList()
+      : new ArrayList<>(this.attributes);
+  }
+
+
+  @Override
+  public String toString() {
+    return this.name + " " + (this.end - this.start) / 1000 + "us";
+  }
+}
@@ -0,0 +1,22 @@
+package br.ufmg.engsoft.reprova.tracing;
+
+import java.util.List;
+
+
+/**
+ * Destination of finished traces.
+ * Implementations must be thread safe, and shouldn't block: export is called in the thread
+ * that ends the trace, usually a request thread.
+ */
+public interface SpanExporter {
+  /**
+   * Export the spans of a finished trace.
+   * @param spans  the trace's spans, root last, all ended
+   */
+  void export(List<Span> spans);
+
+  /**
+   * Flush and release resources. Called once, on shutdown.
+   */
+  default void close() { }
+}
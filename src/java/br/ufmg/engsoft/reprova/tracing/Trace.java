@@ -0,0 +1,65 @@
+package br.ufmg.engsoft.reprova.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * The spans of a request, collected until the root span ends.
+ */
+final class Trace {
+  /**
+   * Maximum number of spans per trace. Further spans aren't recorded, so that long listings
+   * don't grow the trace without bound.
+   */
+  static final int MaxSpans = 1000;
+
+  final Tracer tracer;
+  final String id;
+
+  /**
+   * Offset from System.nanoTime() to the epoch.
+   */
+  final long epochOffset;
+
+  final AtomicInteger started = new AtomicInteger();
+
+  /**
+   * Ended spans.
+   */
+  final List<Span> spans = new ArrayList<>();
+
+
+
+  Trace(Tracer tracer, String id) {
+    this.tracer = tracer;
+    this.id = id;
+    this.epochOffset = System.currentTimeMillis() * 1_000_000 - System.nanoTime();
+  }
+
+
+  /**
+   * Whether another span may be started.
+   */
+  boolean admit() {
+    return this.started.incrementAndGet() <= MaxSpans;
+  }
+
+  /**
+   * Collect an ended span, exporting the trace if it is the root.
+   */
+  void ended(Span span) {
+    this.tracer.restore(span);
+
+    List<Span> spans;
+    synchronized (this.spans) {
+      this.spans.add(span);
+      if (span.parent != null)
+        return;
+      spans = new ArrayList<>(this.spans);
+    }
+
+    this.tracer.export(spans);
+  }
+}
@@ -0,0 +1,245 @@
+package br.ufmg.engsoft.reprova.tracing;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.logging.LogSampler;
+
+
+/**
+ * In process tracing.
+ * A trace is started for a sampled request, and spans started in the same thread nest in
+ * it, through a thread local current span. Outside a sampled request spans are the Noop
+ * span, so instrumented code costs a thread local read when tracing is off.
+ * Finished traces go to the exporter.
+ */
+public final class Tracer {
+  /**
+   * Singleton instance.
+   */
+  private static Tracer instance;
+
+  /**
+   * Logger instance.
+   */
+  protected static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+
+  protected static final LogSampler failedLog =
+    new LogSampler(logger, Level.ERROR, "Failed to export trace");
+
+  /**
+   * The exporter, from 'REPROVA_TRACE_EXPORTER' environment variable: 'none', 'file', or
+   * the name of a SpanExporter class with a public no argument constructor.
+   * Defaults to 'none', which disables tracing.
+   */
+  protected static final String exporterName =
+    Config.getInstance().get("REPROVA_TRACE_EXPORTER", "none");
+
+  /**
+   * The file exporter's output, from 'REPROVA_TRACE_FILE' environment variable.
+   * Defaults to 'traces.jsonl'.
+   */
+  protected static final String exporterFile =
+    Config.getInstance().get("REPROVA_TRACE_FILE", "traces.jsonl");
+
+  /**
+   * Fraction of requests traced, from 'REPROVA_TRACE_SAMPLE' environment variable.
+   * Defaults to 0: only requests that carry a trace id are traced.
+   */
+  protected static final double sampleRate = Double.parseDouble(
+    Config.getInstance().get("REPROVA_TRACE_SAMPLE", "0")
+  );
+
+  /**
+   * The exporter, or null if tracing is disabled.
+   */
+  protected final SpanExporter exporter;
+
+  /**
+   * Fraction of traces started without a given id that are recorded.
+   */
+  protected final double sample;
+
+  /**
+   * The current span of each thread.
+   */
+  protected final ThreadLocal<Span> current = new ThreadLocal<>();
+
+
+
+  /**
+   * Basic constructor.
+   * @param exporter  where traces go, or null to disable tracing
+   * @param sample    fraction of traces recorded, between 0 and 1
+   * @throws IllegalArgumentException  if sample isn't between 0 and 1
+   */
+  public Tracer(SpanExporter exporter, double sample) {
+    if (sample < 0 || sample > 1)
+      throw new IllegalArgumentException("sample must be between 0 and 1");
+
+    this.exporter = exporter;
+    this.sample = sample;
+  }
+
+  /**
+   * Returns the application's tracer, with the configured exporter.
+   * @throws IllegalArgumentException  if the exporter can't be created
+   */
+  public static synchronized Tracer getInstance() {
+    if (instance == null) {
+      var exporter = Tracer.exporter(exporterName);
+      instance = new Tracer(exporter, sampleRate);
+
+      if (exporter != null) {
+        logger.info("Tracing {} of requests to {}.", sampleRate, exporterName);
+        Runtime.getRuntime().addShutdownHook(new Thread(exporter::close, "trace-shutdown"));
+      }
+    }
+
+    return instance;
+  }
+
+  /**
+   * Create the exporter of the given name.
+   * @return The exporter, or null for 'none'.
+   * @throws IllegalArgumentException  if the exporter can't be created
+   */
+  protected static SpanExporter exporter(String name) {
+    switch (name) {
+      case "none":
+        return null;
+      case "file":
+        return new FileSpanExporter(Path.of(exporterFile));
+      default:
+        try {
+          return Class.forName(name)
+            .asSubclass(SpanExporter.class)
+            .getConstructor()
+            .newInstance();
+        }
+        catch (ReflectiveOperationException | ClassCastException e) {
+          throw new IllegalArgumentException("invalid trace exporter: " + name, e);
+        }
+    }
+  }
+
+
+  /**
+   * Whether any trace may be recorded.
+   */
+  public boolean isEnabled() {
+    return this.exporter != null;
+  }
+
+  /**
+   * Check if the given string is a valid trace id: 32 lowercase hex characters, not all 0.
+   */
+  public static boolean isTraceId(String id) {
+    if (id == null || id.length() != 32)
+      return false;
+
+    var zero = true;
+    for (var i = 0; i < id.length(); i++) {
+      var c = id.charAt(i);
+      if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f'))
+        return false;
+      zero &= c == '0';
+    }
+
+    return !zero;
+  }
+
+
+  /**
+   * Start a trace in the current thread, if sampled, with the given root span.
+   * Traces with a given id are always recorded, so that a client can trace its request.
+   * @param name  the root span's name
+   * @param id    the trace id, or null to generate one
+   * @return The root span, or Noop if not sampled.
+   */
+  public Span startTrace(String name, String id) {
+    if (this.exporter == null)
+      return Span.Noop;
+
+    if (id == null) {
+      if (this.sample == 0 || ThreadLocalRandom.current().nextDouble() >= this.sample)
+        return Span.Noop;
+
+      id = Span.id(2);
+    }
+
+    var root = new Span(new Trace(this, id), null, name, System.nanoTime());
+    this.current.set(root);
+
+    return root;
+  }
+
+  /**
+   * Start a span, nested in the current one.
+   * @return The span, or Noop if there is no current trace.
+   */
+  public Span start(String name) {
+    var parent = this.current.get();
+    if (parent == null || !parent.trace.admit())
+      return Span.Noop;
+
+    var span = new Span(parent.trace, parent, name, System.nanoTime());
+    this.current.set(span);
+
+    return span;
+  }
+
+  /**
+   * The current span, or Noop if there is no current trace.
+   */
+  public Span current() {
+    var span = this.current.get();
+    return span == null ? Span.Noop : span;
+  }
+
+  /**
+   * Leave the current trace in this thread, whether or not its spans have ended.
+   * For requests that finish in another thread.
+   */
+  public void detach() {
+    this.current.remove();
+  }
+
+
+  /**
+   * Restore the nearest open ancestor of the given ended span as current, if it was current.
+   * Spans that outlive their parent, such as streams', end after it.
+   */
+  void restore(Span span) {
+    if (this.current.get() != span)
+      return;
+
+    var parent = span.parent;
+    while (parent != null && parent.end != 0)
+      parent = parent.parent;
+
+    if (parent == null)
+      this.current.remove();
+    else
+      this.current.set(parent);
+  }
+
+  /**
+   * Export the spans of a finished trace. Failures are logged, not thrown.
+   */
+  void export(List<Span> spans) {
+    try {
+      this.exporter.export(spans);
+    }
+    catch (RuntimeException e) {
+      if (failedLog.sample())
+        logger.error("Failed to export trace!", e);
+    }
+  }
+}
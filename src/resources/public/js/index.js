@@ -200,9 +200,28 @@ function editQuestion(id) {
   window.location = location;
 };
 
+async function fetchQuestions() {
+  let questions = [];
+  let next = null;
+
+  do {
+    let url = '/api/questions?token=' + token;
+
+    if (next)
+      url += '&after=' + next;
+
+    const request = await fetch(url);
+    const page = await request.json();
+
+    questions = questions.concat(page.questions);
+    next = page.next;
+  } while (next);
+
+  return questions;
+}
+
 async function loadQuestions() {
-  const request = await fetch('/api/questions?token=' + token);
-  const response = await request.json();
+  const response = await fetchQuestions();
 
   let table = questionsTable(response);
   table.id = 'questions';
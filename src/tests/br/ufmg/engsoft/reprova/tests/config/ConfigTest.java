@@ -0,0 +1,98 @@
+package br.ufmg.engsoft.reprova.tests.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.config.Config;
+import br.ufmg.engsoft.reprova.config.ConfigWatcher;
+
+
+class ConfigTest {
+  /**
+   * Typed settings are parsed once, and question types are enabled unless 'false'.
+   */
+  @Test
+  void typed() {
+    var config = new Config(Map.of("MULTIPLE_CHOICE", "false", "OPTIONS", " 4 "));
+    assertFalse(config.multipleChoice);
+    assertTrue(config.open);
+    assertEquals(4, config.options);
+
+    assertNull(new Config(Map.of()).options);
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new Config(Map.of("OPTIONS", "four"))
+    );
+  }
+
+
+  /**
+   * The file's settings take precedence over the environment's.
+   */
+  @Test
+  void load() throws IOException {
+    var file = Files.createTempFile("reprova", ".properties");
+
+    try {
+      Files.writeString(file, "OPEN=false\nREPROVA_CACHE_SIZE=10\n");
+
+      var config = Config.load(Map.of("OPEN", "true", "PORT", "8080"), file);
+      assertFalse(config.open);
+      assertEquals("10", config.get("REPROVA_CACHE_SIZE"));
+      assertEquals("8080", config.get("PORT"));
+      assertEquals("60", config.get("REPROVA_CACHE_TTL", "60"));
+
+      assertTrue(Config.load(Map.of("OPEN", "true"), null).open);
+    }
+    finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+
+  /**
+   * Changes to the watched file are noticed.
+   */
+  @Test
+  void watch() throws IOException, InterruptedException {
+    var directory = Files.createTempDirectory("reprova");
+    var file = directory.resolve("reprova.properties");
+    Files.writeString(file, "OPTIONS=4\n");
+
+    var changes = new Semaphore(0);
+    var watcher = new ConfigWatcher(file, changes::release);
+    try {
+      // Rewrite until noticed, as the watcher may start after the first write.
+      var noticed = false;
+      for (var i = 0; i < 50 && !noticed; i++) {
+        Files.writeString(file, "OPTIONS=5\n");
+        noticed = changes.tryAcquire(200, TimeUnit.MILLISECONDS);
+      }
+      assertTrue(noticed);
+
+      // Let the last rewrite settle, then changes to other files must go unnoticed.
+      Thread.sleep(500);
+      changes.drainPermits();
+      Files.writeString(directory.resolve("other.properties"), "OPTIONS=6\n");
+      assertFalse(changes.tryAcquire(500, TimeUnit.MILLISECONDS));
+    }
+    finally {
+      watcher.close();
+      Files.deleteIfExists(directory.resolve("other.properties"));
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(directory);
+    }
+  }
+}
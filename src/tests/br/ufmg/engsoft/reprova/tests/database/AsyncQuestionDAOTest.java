@@ -0,0 +1,102 @@
+package br.ufmg.engsoft.reprova.tests.database;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.FindIterable;
+import com.mongodb.async.client.MongoCollection;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import br.ufmg.engsoft.reprova.database.AsyncQuestionDAO;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+
+
+@SuppressWarnings("deprecation") // the async driver's, as AsyncQuestionDAO.
+class AsyncQuestionDAOTest {
+  /**
+   * A collection whose finds all complete with the given question, or null, counting them.
+   */
+  @SuppressWarnings("unchecked")
+  protected static MongoCollection<Question> collection(Question question, AtomicInteger finds) {
+    var found = (FindIterable<Question>) Proxy.newProxyInstance(
+      FindIterable.class.getClassLoader(),
+      new Class<?>[] { FindIterable.class },
+      (proxy, method, args) -> {
+        if (!method.getName().equals("first"))
+          throw new UnsupportedOperationException(method.getName());
+
+        finds.incrementAndGet();
+        ((SingleResultCallback<Question>) args[0]).onResult(question, null);
+        return null;
+      }
+    );
+
+    return (MongoCollection<Question>) Proxy.newProxyInstance(
+      MongoCollection.class.getClassLoader(),
+      new Class<?>[] { MongoCollection.class },
+      (proxy, method, args) -> {
+        if (!method.getName().equals("find"))
+          throw new UnsupportedOperationException(method.getName());
+
+        return found;
+      }
+    );
+  }
+
+
+  /**
+   * Found questions are cached, and served from the cache afterwards.
+   */
+  @Test
+  void hit() {
+    var id = new ObjectId().toHexString();
+    var question = new QuestionBuilder()
+      .id(id)
+      .theme("theme")
+      .description("description")
+      .pvt(false)
+      .build();
+
+    var finds = new AtomicInteger();
+    var cache = Caffeine.newBuilder().<String, Question>build();
+    var dao = new AsyncQuestionDAO(collection(question, finds), cache, new AtomicLong());
+
+    assertSame(question, dao.get(id).join());
+    assertSame(question, cache.getIfPresent(id));
+
+    assertSame(question, dao.get(id).join());
+    assertEquals(1, finds.get());
+  }
+
+
+  /**
+   * Missing questions complete with null and aren't cached, whether the log sampler lets
+   * their message through or suppresses it.
+   */
+  @Test
+  void miss() {
+    var finds = new AtomicInteger();
+    var cache = Caffeine.newBuilder().<String, Question>build();
+    var dao = new AsyncQuestionDAO(collection(null, finds), cache, new AtomicLong());
+
+    // More misses than sampled per second, so that the latter ones are suppressed.
+    var misses = 100;
+    for (var i = 0; i < misses; i++) {
+      var id = new ObjectId().toHexString();
+      assertNull(dao.get(id).join());
+      assertNull(cache.getIfPresent(id));
+    }
+
+    assertEquals(misses, finds.get());
+  }
+}
@@ -0,0 +1,92 @@
+package br.ufmg.engsoft.reprova.tests.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.database.CoalescingQuestionRepository;
+import br.ufmg.engsoft.reprova.database.MemoryQuestionRepository;
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.metrics.Metrics;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+
+
+class CoalescingQuestionRepositoryTest {
+  /**
+   * Concurrent adds are all stored, in fewer batches than adds, each getting its result.
+   */
+  @Test
+  void coalesce() throws Exception {
+    var store = new MemoryQuestionRepository(null);
+    var batches = new AtomicInteger();
+
+    // Count the batches, waiting a bit in each so that the next one fills up.
+    var counted = (QuestionRepository) Proxy.newProxyInstance(
+      QuestionRepository.class.getClassLoader(),
+      new Class<?>[] { QuestionRepository.class },
+      (proxy, method, args) -> {
+        if (method.getName().equals("addAll")) {
+          batches.incrementAndGet();
+          Thread.sleep(5);
+        }
+
+        try {
+          return method.invoke(store, args);
+        }
+        catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+    );
+
+    var repository = new CoalescingQuestionRepository(counted, new Metrics(), 16, 1);
+
+    var adds = 64;
+    ExecutorService threads = Executors.newFixedThreadPool(adds);
+    try {
+      var start = new CountDownLatch(1);
+      var results = new ArrayList<Future<Boolean>>();
+
+      for (var i = 0; i < adds; i++) {
+        var question = new QuestionBuilder()
+          .theme("theme")
+          .description("question " + i)
+          .pvt(false)
+          .build();
+
+        results.add(threads.submit(() -> {
+          start.await();
+          return repository.add(question);
+        }));
+      }
+
+      start.countDown();
+
+      for (var result : results)
+        assertTrue(result.get());
+    }
+    finally {
+      threads.shutdown();
+    }
+
+    assertEquals(adds, store.list(null, null, null, 1000).size());
+    assertTrue(batches.get() < adds, "batches " + batches.get());
+    assertTrue(batches.get() >= adds / 16, "batches " + batches.get());
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> repository.add(new QuestionBuilder().id("id").theme("t").description("d").build())
+    );
+  }
+}
@@ -0,0 +1,239 @@
+package br.ufmg.engsoft.reprova.tests.database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.database.MemoryQuestionRepository;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.QuestionPatch;
+
+
+class MemoryQuestionRepositoryTest {
+  protected static Question question(String theme, boolean pvt) {
+    return new QuestionBuilder()
+      .theme(theme)
+      .description("description")
+      .statement("statement")
+      .pvt(pvt)
+      .build();
+  }
+
+  protected static List<String> ids(List<Question> questions) {
+    return questions.stream().map(question -> question.id).collect(Collectors.toList());
+  }
+
+
+  /**
+   * Listings filter by the indexes, page in id order, and omit the statement.
+   */
+  @Test
+  void list() {
+    var repository = new MemoryQuestionRepository(null);
+
+    for (var i = 0; i < 10; i++)
+      assertTrue(repository.add(question(i % 2 == 0 ? "even" : "odd", i % 3 == 0)));
+
+    var all = repository.list(null, null, null, 100);
+    assertEquals(10, all.size());
+    assertNull(all.get(0).statement);
+    assertNotNull(repository.get(all.get(0).id).statement);
+
+    var sorted = new ArrayList<>(ids(all));
+    sorted.sort(null);
+    assertEquals(sorted, ids(all));
+
+    var even = repository.list("even", null, null, 100);
+    assertEquals(5, even.size());
+    assertTrue(even.stream().allMatch(question -> question.theme.equals("even")));
+
+    var evenPublic = repository.list("even", false, null, 100);
+    assertEquals(3, evenPublic.size());
+
+    var first = repository.list(null, null, null, 4);
+    var second = repository.list(null, null, first.get(3).id, 4);
+    assertEquals(ids(all.subList(4, 8)), ids(second));
+
+    assertTrue(repository.list("none", null, null, 100).isEmpty());
+  }
+
+
+  /**
+   * Multi-gets return each id's question, in order.
+   */
+  @Test
+  void getAll() {
+    var repository = new MemoryQuestionRepository(null);
+
+    repository.add(question("a", false));
+    repository.add(question("b", true));
+    var added = ids(repository.list(null, null, null, 10));
+
+    var missing = "000000000000000000000000";
+    var questions = repository.getAll(
+      Arrays.asList(added.get(1), "bogus", null, missing, added.get(0), added.get(1))
+    );
+    assertEquals(6, questions.size());
+    assertEquals(repository.get(added.get(1)), questions.get(0));
+    assertNull(questions.get(1));
+    assertNull(questions.get(2));
+    assertNull(questions.get(3));
+    assertEquals(repository.get(added.get(0)), questions.get(4));
+    assertEquals(questions.get(0), questions.get(5));
+
+    assertThrows(IllegalArgumentException.class, () -> repository.getAll(null));
+  }
+
+
+  /**
+   * Updates move questions between indexes, and removes drop them.
+   */
+  @Test
+  void write() {
+    var repository = new MemoryQuestionRepository(null);
+
+    repository.add(question("a", false));
+    var id = repository.list("a", null, null, 1).get(0).id;
+    var version = repository.version();
+
+    assertTrue(repository.update(id, question("b", true)));
+    assertTrue(repository.list("a", null, null, 10).isEmpty());
+    assertEquals(id, repository.list("b", true, null, 10).get(0).id);
+    assertTrue(repository.list(null, false, null, 10).isEmpty());
+    assertTrue(repository.version() > version);
+
+    assertTrue(repository.remove(id));
+    assertFalse(repository.remove(id));
+    assertFalse(repository.update(id, question("c", false)));
+    assertNull(repository.get(id));
+    assertTrue(repository.list(null, null, null, 10).isEmpty());
+  }
+
+
+  /**
+   * Batch removes report each id's outcome, in order.
+   */
+  @Test
+  void removeAll() {
+    var repository = new MemoryQuestionRepository(null);
+
+    repository.add(question("a", false));
+    repository.add(question("a", true));
+    var added = ids(repository.list("a", null, null, 10));
+
+    var results = repository.removeAll(
+      Arrays.asList(added.get(1), "bogus", null, added.get(0), added.get(1))
+    );
+    assertEquals(5, results.size());
+    assertNull(results.get(0).error);
+    assertEquals("invalid id", results.get(1).error);
+    assertEquals("invalid id", results.get(2).error);
+    assertNull(results.get(3).error);
+    assertEquals("no such question", results.get(4).error);
+    assertTrue(repository.list(null, null, null, 10).isEmpty());
+
+    assertThrows(IllegalArgumentException.class, () -> repository.removeAll(null));
+  }
+
+
+  /**
+   * Patches change only the given fields, and are validated.
+   */
+  @Test
+  void patch() {
+    var repository = new MemoryQuestionRepository(null);
+
+    repository.add(question("a", false));
+    var id = repository.list("a", null, null, 1).get(0).id;
+
+    assertTrue(repository.patch(id, new QuestionPatch().theme("b").statement(null)));
+    var patched = repository.get(id);
+    assertEquals("b", patched.theme);
+    assertEquals("description", patched.description);
+    assertNull(patched.statement);
+    assertFalse(patched.pvt);
+    assertTrue(repository.list("a", null, null, 10).isEmpty());
+    assertEquals(id, repository.list("b", false, null, 10).get(0).id);
+
+    assertThrows(IllegalArgumentException.class, () -> repository.patch(id, new QuestionPatch()));
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> repository.patch(id, new QuestionPatch().description(""))
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> repository.patch(id, new QuestionPatch().optCount("4"))
+    );
+
+    repository.remove(id);
+    assertFalse(repository.patch(id, new QuestionPatch().pvt(true)));
+  }
+
+
+  /**
+   * Snapshots restore the same questions, with their types.
+   */
+  @Test
+  void snapshot() throws IOException {
+    var file = Files.createTempFile("questions", ".ndjson");
+    Files.delete(file);
+
+    try {
+      var repository = new MemoryQuestionRepository(file);
+      for (var i = 0; i < 3; i++)
+        repository.add(question("theme", false));
+      assertTrue(repository.add(
+        new QuestionBuilder()
+          .theme("theme")
+          .description("description")
+          .statement("statement")
+          .pvt(false)
+          .type("multiple_choice")
+          .optCount("4")
+          .options(List.of("a", "b", "c", "d"))
+          .build()
+      ));
+      repository.snapshot();
+
+      var restored = new MemoryQuestionRepository(file);
+      var questions = repository.list(null, null, null, 10);
+      assertEquals(ids(questions), ids(restored.list(null, null, null, 10)));
+
+      for (var question : questions) {
+        var original = repository.get(question.id);
+        var copy = restored.get(question.id);
+
+        assertEquals(original, copy);
+        assertEquals(original.getClass(), copy.getClass());
+
+        if (original instanceof MultipleChoiceQuestion) {
+          assertEquals(
+            ((MultipleChoiceQuestion) original).options,
+            ((MultipleChoiceQuestion) copy).options
+          );
+          assertEquals(
+            ((MultipleChoiceQuestion) original).optCount,
+            ((MultipleChoiceQuestion) copy).optCount
+          );
+        }
+      }
+    }
+    finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
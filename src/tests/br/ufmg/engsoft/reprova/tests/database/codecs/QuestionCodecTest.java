@@ -0,0 +1,115 @@
+package br.ufmg.engsoft.reprova.tests.database.codecs;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.database.codecs.QuestionCodec;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.Semester;
+
+
+class QuestionCodecTest {
+  protected final QuestionCodec codec = new QuestionCodec();
+
+
+  protected BsonDocument encode(Question question) {
+    var document = new BsonDocument();
+    codec.encode(new BsonDocumentWriter(document), question, EncoderContext.builder().build());
+    return document;
+  }
+
+  protected Question decode(BsonDocument document) {
+    return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+  }
+
+
+  /**
+   * Encoding then decoding should produce an equivalent object.
+   */
+  @Test
+  void question() {
+    var question = new QuestionBuilder()
+      .id(new ObjectId().toHexString())
+      .theme("theme")
+      .description("description")
+      .statement("statement")
+      .record(
+        Map.of(
+          new Semester(2019, Semester.Reference.one), Map.of(
+            "tw", 50.0f,
+            "tz", 49.5f,
+            "tx", 51.2f
+          ),
+          new Semester(2020, Semester.Reference.two), Collections.emptyMap()
+        )
+      )
+      .pvt(false)
+      .build();
+
+    assertEquals(question, decode(encode(question)));
+  }
+
+  /**
+   * Missing grades are stored as nulls.
+   */
+  @Test
+  void nullGrade() {
+    var grades = new HashMap<String, Float>();
+    grades.put("tw", null);
+    grades.put("tz", 49.5f);
+
+    var question = new QuestionBuilder()
+      .id(new ObjectId().toHexString())
+      .theme("theme")
+      .description("description")
+      .statement("statement")
+      .record(Map.of(new Semester(2019, Semester.Reference.one), grades))
+      .pvt(false)
+      .build();
+
+    var document = encode(question);
+    assertTrue(document.getDocument("record").getDocument("2019/1").isNull("tw"));
+    assertEquals(question, decode(document));
+  }
+
+  /**
+   * Multiple choice questions keep their options, even if stored without the type tag.
+   */
+  @Test
+  void multipleChoice() {
+    var question = new QuestionBuilder()
+      .id(new ObjectId().toHexString())
+      .theme("theme")
+      .description("description")
+      .statement("statement")
+      .type("multiple_choice")
+      .optCount("2")
+      .options(List.of("a", "b"))
+      .build();
+
+    var document = encode(question);
+    document.remove("type");
+
+    var questionCopy = decode(document);
+
+    assertEquals(question, questionCopy);
+    assertTrue(questionCopy instanceof MultipleChoiceQuestion);
+    assertEquals(List.of("a", "b"), ((MultipleChoiceQuestion) questionCopy).options);
+    assertEquals("2", ((MultipleChoiceQuestion) questionCopy).optCount);
+  }
+}
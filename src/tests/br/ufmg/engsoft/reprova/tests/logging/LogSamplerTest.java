@@ -0,0 +1,62 @@
+package br.ufmg.engsoft.reprova.tests.logging;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.logging.Lazy;
+import br.ufmg.engsoft.reprova.logging.LogSampler;
+
+
+class LogSamplerTest {
+  protected static final Logger logger = LoggerFactory.getLogger(LogSamplerTest.class);
+
+
+  /**
+   * At most the limit is sampled per second.
+   */
+  @Test
+  void limit() {
+    var sampler = new LogSampler(logger, Level.INFO, "test", 5);
+
+    var sampled = 0;
+    for (var i = 0; i < 100; i++)
+      if (sampler.sample())
+        sampled++;
+
+    // The second may turn during the loop, at most once:
+    assertTrue(sampled >= 5 && sampled <= 10, "sampled " + sampled);
+  }
+
+  /**
+   * Disabled levels are never sampled.
+   */
+  @Test
+  void disabled() {
+    var sampler = new LogSampler(logger, Level.TRACE, "test", 0);
+
+    assertFalse(sampler.sample());
+  }
+
+  /**
+   * Payloads are only formatted when rendered, and abbreviated.
+   */
+  @Test
+  void lazy() {
+    var calls = new int[1];
+    var lazy = Lazy.of(() -> ++calls[0]);
+    assertEquals(0, calls[0]);
+    assertEquals("1", lazy.toString());
+
+    var payload = "x".repeat(Lazy.MaxPayload * 2);
+    assertEquals(
+      "x".repeat(Lazy.MaxPayload) + "... (" + payload.length() + " chars)",
+      Lazy.abbreviate(payload).toString()
+    );
+  }
+}
@@ -0,0 +1,84 @@
+package br.ufmg.engsoft.reprova.tests.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.metrics.Histogram;
+
+
+class HistogramTest {
+  /**
+   * Quantiles are bucket bounds, within a quarter of the recorded values.
+   */
+  @Test
+  void valueAt() {
+    var histogram = Histogram.sizes();
+    assertEquals(0, histogram.valueAt(0.5));
+
+    histogram.record(5);
+    histogram.record(100);
+    histogram.record(1000);
+
+    assertEquals(3, histogram.count());
+    assertEquals(1105, histogram.sum());
+
+    assertEquals(5, histogram.valueAt(0));
+
+    var median = histogram.valueAt(0.5);
+    assertTrue(median >= 100 && median <= 125, "median " + median);
+
+    var max = histogram.valueAt(1);
+    assertTrue(max >= 1000 && max <= 1250, "max " + max);
+  }
+
+
+  /**
+   * Buckets are written cumulatively, with power of two bounds.
+   */
+  @Test
+  void write() throws IOException {
+    var histogram = Histogram.sizes();
+    histogram.record(5);
+    histogram.record(100);
+    histogram.record(1000);
+
+    var writer = new StringWriter();
+    histogram.write(writer, "size", "route=\"/\"");
+    var text = writer.toString();
+
+    assertTrue(text.contains("size_bucket{route=\"/\",le=\"8.0\"} 1\n"), text);
+    assertTrue(text.contains("size_bucket{route=\"/\",le=\"64.0\"} 1\n"), text);
+    assertTrue(text.contains("size_bucket{route=\"/\",le=\"128.0\"} 2\n"), text);
+    assertTrue(text.contains("size_bucket{route=\"/\",le=\"+Inf\"} 3\n"), text);
+    assertTrue(text.contains("size_sum{route=\"/\"} 1105.0\n"), text);
+    assertTrue(text.contains("size_count{route=\"/\"} 3\n"), text);
+  }
+
+
+  /**
+   * Values on a bound count in its bucket, as le is inclusive.
+   */
+  @Test
+  void bound() throws IOException {
+    var histogram = Histogram.sizes();
+    histogram.record(8);
+    histogram.record(256);
+    histogram.record(257);
+
+    var writer = new StringWriter();
+    histogram.write(writer, "size", "");
+    var text = writer.toString();
+
+    assertTrue(text.contains("size_bucket{le=\"8.0\"} 1\n"), text);
+    assertTrue(text.contains("size_bucket{le=\"128.0\"} 1\n"), text);
+    assertTrue(text.contains("size_bucket{le=\"256.0\"} 2\n"), text);
+    assertTrue(text.contains("size_bucket{le=\"512.0\"} 3\n"), text);
+
+    assertEquals(256, histogram.valueAt(0.5));
+  }
+}
@@ -1,6 +1,7 @@
 package br.ufmg.engsoft.reprova.tests.mime.json;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
 import br.ufmg.engsoft.reprova.model.QuestionBuilder;
 import br.ufmg.engsoft.reprova.model.Semester;
 
@@ -46,4 +48,34 @@ class JsonTest {
 
     assertEquals(question,questionCopy);
   }
+
+  /**
+   * Multiple choice questions keep their options through rendering and parsing.
+   */
+  @Test
+  void multipleChoice() {
+    var question = new QuestionBuilder()
+      .id("id")
+      .theme("theme")
+      .description("description")
+      .statement("statement")
+      .type("multiple_choice")
+      .optCount("2")
+      .options(List.of("a", "b"))
+      .build();
+
+    var formatter = Json.getInstance();
+
+    var json = formatter.render(question);
+
+    var questionCopy = formatter
+      .parse(json, QuestionBuilder.class)
+      .build();
+
+    assertEquals(question, questionCopy);
+    assertEquals(
+      ((MultipleChoiceQuestion) question).options,
+      ((MultipleChoiceQuestion) questionCopy).options
+    );
+  }
 }
@@ -0,0 +1,72 @@
+package br.ufmg.engsoft.reprova.tests.routes;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.routes.ResponseCache;
+
+
+class ResponseCacheTest {
+  /**
+   * A slow rendering doesn't hold up other keys, and concurrent lookups of the same key
+   * share it.
+   */
+  @Test
+  void render() throws Exception {
+    var cache = new ResponseCache(1000, false);
+    var threads = Executors.newFixedThreadPool(3);
+
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var renders = new AtomicInteger();
+
+    ResponseCache.Renderer slow = out -> {
+      renders.incrementAndGet();
+      started.countDown();
+      try {
+        release.await();
+      }
+      catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      out.write('a');
+    };
+
+    try {
+      var first = CompletableFuture.supplyAsync(() -> cache.get("Aa", 1, slow), threads);
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      var second = CompletableFuture.supplyAsync(() -> cache.get("Aa", 1, slow), threads);
+
+      // Other keys render meanwhile, even in the same bin ("Aa" and "BB" hash the same):
+      var other = CompletableFuture
+        .supplyAsync(() -> cache.get("BB", 1, out -> out.write('b')), threads)
+        .get(5, TimeUnit.SECONDS);
+      assertArrayEquals(new byte[] { 'b' }, other.body);
+
+      release.countDown();
+
+      var entry = first.get(5, TimeUnit.SECONDS);
+      assertSame(entry, second.get(5, TimeUnit.SECONDS));
+      assertArrayEquals(new byte[] { 'a' }, entry.body);
+      assertEquals(1, renders.get());
+
+      // Served while current, rendered again once the version moves on:
+      assertSame(entry, cache.get("Aa", 1, slow));
+      assertEquals(2, cache.get("Aa", 2, out -> out.write('c')).version);
+    }
+    finally {
+      release.countDown();
+      threads.shutdown();
+    }
+  }
+}
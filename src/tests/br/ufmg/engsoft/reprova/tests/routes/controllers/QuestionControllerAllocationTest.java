@@ -0,0 +1,287 @@
+package br.ufmg.engsoft.reprova.tests.routes.controllers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import spark.Request;
+import spark.Response;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.Question;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.model.Semester;
+import br.ufmg.engsoft.reprova.routes.controllers.QuestionController;
+import br.ufmg.engsoft.reprova.services.HandlerRegistry;
+import br.ufmg.engsoft.reprova.services.interfaces.ICreateQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.ICreateQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IDeleteQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IExportQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionByIdHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsByIdsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IGetQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IPatchQuestionHandler;
+import br.ufmg.engsoft.reprova.services.interfaces.IUpdateQuestionHandler;
+import br.ufmg.engsoft.reprova.services.output.CreateQuestionOutput;
+import br.ufmg.engsoft.reprova.services.output.GetQuestionByIdOutput;
+
+
+/**
+ * Bytes allocated per request on the controller's hot paths, past the database.
+ * Fails if any path allocates more than its budget, which is about twice the allocation
+ * measured when the budget was set. Requires the JVM's thread allocation counters.
+ */
+class QuestionControllerAllocationTest {
+  /**
+   * Iterations run before measuring, so that allocations are measured on compiled code:
+   * escape analysis only removes allocations once the JIT has compiled the path.
+   */
+  static final int Warmup = 50000;
+
+  /**
+   * Iterations per measurement.
+   */
+  static final int Iterations = 20000;
+
+  static com.sun.management.ThreadMXBean threads;
+
+  static Question question;
+  static String body;
+  static List<Question> page;
+
+
+  /**
+   * Controller exposing the routes and the page rendering.
+   */
+  static class Controller extends QuestionController {
+    Controller(HandlerRegistry handlers) {
+      super(handlers);
+    }
+
+    @Override
+    public Object get(Request request, Response response) {
+      return super.get(request, response);
+    }
+
+    @Override
+    public Object post(Request request, Response response) {
+      return super.post(request, response);
+    }
+
+    void writePage(List<Question> questions, int limit, OutputStream out) {
+      try {
+        this.writePage(questions.stream(), limit, out);
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+
+  /**
+   * Request with the given query parameters and body, and no headers.
+   */
+  static class StubRequest extends Request {
+    final Map<String, String> params;
+    final String body;
+
+    StubRequest(Map<String, String> params, String body) {
+      this.params = params;
+      this.body = body;
+    }
+
+    @Override
+    public String queryParams(String name) {
+      return this.params.get(name);
+    }
+
+    @Override
+    public String headers(String name) {
+      return null;
+    }
+
+    @Override
+    public String body() {
+      return this.body;
+    }
+
+    @Override
+    public String pathInfo() {
+      return "/api/questions";
+    }
+  }
+
+  /**
+   * Response that keeps only the status.
+   */
+  static class StubResponse extends Response {
+    int status;
+
+    @Override
+    public void status(int status) {
+      this.status = status;
+    }
+
+    @Override
+    public void type(String type) { }
+
+    @Override
+    public void header(String name, String value) { }
+  }
+
+
+  @BeforeAll
+  static void setup() {
+    var bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+    threads = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    question = new QuestionBuilder()
+      .id("5cbe2d6a2bd8a80ac4b3b3c9")
+      .theme("theme")
+      .description("description")
+      .statement("statement")
+      .record(
+        Map.of(
+          new Semester(2019, Semester.Reference.one), Map.of("tw", 50.0f, "tz", 49.5f),
+          new Semester(2019, Semester.Reference.two), Map.of("tw", 61.0f)
+        )
+      )
+      .pvt(false)
+      .build();
+
+    body = Json.getInstance().render(question);
+
+    page = new ArrayList<>();
+    for (var i = 0; i <= 100; i++)
+      page.add(question);
+  }
+
+
+  /**
+   * Registry with stub handlers, so that no database is needed.
+   */
+  static HandlerRegistry stubs() {
+    var output = new GetQuestionByIdOutput(question, 1);
+    var created = new CreateQuestionOutput(true);
+    var json = Json.getInstance();
+
+    return new HandlerRegistry()
+      .register(IGetQuestionByIdHandler.class, () -> input -> output)
+      .register(IGetQuestionsHandler.class, () -> input -> null)
+      .register(IGetQuestionsByIdsHandler.class, () -> input -> null)
+      .register(IExportQuestionsHandler.class, () -> input -> null)
+      .register(ICreateQuestionHandler.class, () -> input -> { // Parse and build, as stored.
+        json.parse(input.getBody(), QuestionBuilder.class).build();
+        return created;
+      })
+      .register(ICreateQuestionsBatchHandler.class, () -> input -> null)
+      .register(IUpdateQuestionHandler.class, () -> input -> null)
+      .register(IPatchQuestionHandler.class, () -> input -> null)
+      .register(IDeleteQuestionHandler.class, () -> input -> null)
+      .register(IDeleteQuestionsBatchHandler.class, () -> input -> null);
+  }
+
+
+  /**
+   * Average bytes allocated by the given operation, after warming it up.
+   */
+  static double bytesPerOp(Runnable operation, int warmup, int iterations) {
+    for (var i = 0; i < warmup; i++)
+      operation.run();
+
+    var thread = Thread.currentThread().getId();
+    var start = threads.getThreadAllocatedBytes(thread);
+
+    for (var i = 0; i < iterations; i++)
+      operation.run();
+
+    return (threads.getThreadAllocatedBytes(thread) - start) / (double) iterations;
+  }
+
+
+  /**
+   * Handlers are created once, and looking them up doesn't allocate.
+   */
+  @Test
+  void lookup() {
+    var handlers = stubs();
+
+    var handler = handlers.get(IGetQuestionByIdHandler.class);
+    assertSame(handler, handlers.get(IGetQuestionByIdHandler.class));
+
+    var bytes = bytesPerOp(
+      () -> handlers.get(IGetQuestionByIdHandler.class),
+      Warmup,
+      Iterations
+    );
+    assertTrue(bytes < 1, "registry lookup allocates " + bytes + " bytes");
+  }
+
+  /**
+   * Get by id: route the request, dispatch to the handler and render the question.
+   */
+  @Test
+  void getById() {
+    var controller = new Controller(stubs());
+    var request = new StubRequest(Map.of("id", question.id), null);
+    var response = new StubResponse();
+
+    controller.get(request, response);
+    assertEquals(200, response.status);
+
+    var bytes = bytesPerOp(() -> controller.get(request, response), Warmup, Iterations);
+    assertTrue(bytes < 5500, "get by id allocates " + bytes + " bytes");
+  }
+
+  /**
+   * List: render a page of 100 questions.
+   * The page is streamed to the response through a buffered encoder, as an unbuffered one
+   * allocates on every token.
+   */
+  @Test
+  void list() {
+    var controller = new Controller(stubs());
+    var out = OutputStream.nullOutputStream();
+
+    var bytes = bytesPerOp(
+      () -> controller.writePage(page, 100, out),
+      Warmup / 100,
+      Iterations / 100
+    );
+    assertTrue(bytes < 360000, "list allocates " + bytes + " bytes");
+  }
+
+  /**
+   * Create: route the request, dispatch to the handler, and parse and build the question.
+   */
+  @Test
+  void create() {
+    var controller = new Controller(stubs());
+    var request = new StubRequest(Map.of("token", "token"), body);
+    var response = new StubResponse();
+
+    controller.post(request, response);
+    assertEquals(200, response.status);
+
+    var bytes = bytesPerOp(() -> controller.post(request, response), Warmup, Iterations);
+    assertTrue(bytes < 10000, "create allocates " + bytes + " bytes");
+  }
+}
@@ -0,0 +1,91 @@
+package br.ufmg.engsoft.reprova.tests.services.handlers;
+
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.database.QuestionRepository;
+import br.ufmg.engsoft.reprova.mime.json.Json;
+import br.ufmg.engsoft.reprova.model.MultipleChoiceQuestion;
+import br.ufmg.engsoft.reprova.model.OpenQuestion;
+import br.ufmg.engsoft.reprova.model.QuestionBuilder;
+import br.ufmg.engsoft.reprova.services.handlers.CreateQuestionsBatchHandler;
+import br.ufmg.engsoft.reprova.services.handlers.ExportQuestionsHandler;
+import br.ufmg.engsoft.reprova.services.input.CreateQuestionsBatchInput;
+import br.ufmg.engsoft.reprova.services.input.ExportQuestionsInput;
+
+
+class ExportQuestionsHandlerTest {
+  /**
+   * Exported questions, imported back in a batch, keep their type and options.
+   */
+  @Test
+  void reimport() {
+    var repository = QuestionRepository.getInstance();
+    var theme = "export " + System.nanoTime();
+
+    assertTrue(repository.add(
+      new QuestionBuilder()
+        .theme(theme)
+        .description("multiple choice")
+        .pvt(false)
+        .type("multiple_choice")
+        .optCount("4")
+        .options(List.of("a", "b", "c", "d"))
+        .build()
+    ));
+    assertTrue(repository.add(
+      new QuestionBuilder()
+        .theme(theme)
+        .description("open")
+        .pvt(false)
+        .type("open")
+        .build()
+    ));
+
+    // Export as the export endpoint does, one question per line:
+    var json = Json.getInstance();
+    var export = new StringWriter();
+    try (
+      var questions = new ExportQuestionsHandler()
+        .handle(new ExportQuestionsInput(null))
+        .getQuestions()
+    ) {
+      questions
+        .filter(question -> question.theme.equals(theme))
+        .forEach(question -> {
+          json.render(question, export);
+          export.write('\n');
+        });
+    }
+
+    var output = new CreateQuestionsBatchHandler()
+      .handle(new CreateQuestionsBatchInput(export.toString(), true));
+
+    assertEquals(2, output.getCreatedCount());
+
+    var descriptions = new HashSet<String>();
+    for (var item : output.getItems()) {
+      assertNull(item.error);
+
+      var question = repository.get(item.id);
+      descriptions.add(question.description);
+
+      if (question.description.equals("open"))
+        assertTrue(question instanceof OpenQuestion);
+      else {
+        assertTrue(question instanceof MultipleChoiceQuestion);
+        assertEquals("4", ((MultipleChoiceQuestion) question).optCount);
+        assertEquals(List.of("a", "b", "c", "d"), ((MultipleChoiceQuestion) question).options);
+      }
+    }
+
+    assertEquals(2, descriptions.size());
+  }
+}
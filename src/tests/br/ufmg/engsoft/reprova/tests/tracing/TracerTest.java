@@ -0,0 +1,114 @@
+package br.ufmg.engsoft.reprova.tests.tracing;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.ufmg.engsoft.reprova.tracing.FileSpanExporter;
+import br.ufmg.engsoft.reprova.tracing.Span;
+import br.ufmg.engsoft.reprova.tracing.Tracer;
+
+
+class TracerTest {
+  protected static final String TraceId = "0af7651916cd43dd8448eb211c80319c";
+
+
+  /**
+   * Spans nest in the current span, and the trace is exported when the root ends.
+   */
+  @Test
+  void nesting() {
+    var traces = new ArrayList<List<Span>>();
+    var tracer = new Tracer(traces::add, 0);
+
+    assertSame(Span.Noop, tracer.start("outside"));
+    assertSame(Span.Noop, tracer.startTrace("unsampled", null));
+
+    var root = tracer.startTrace("root", TraceId);
+    assertEquals(TraceId, root.traceId());
+
+    try (var handler = tracer.start("handler")) {
+      try (var dao = tracer.start("dao")) {
+        assertSame(dao, tracer.current());
+      }
+      assertSame(handler, tracer.current());
+    }
+
+    assertTrue(traces.isEmpty());
+    root.close();
+    assertSame(Span.Noop, tracer.current());
+
+    assertEquals(1, traces.size());
+    var spans = traces.get(0);
+    assertEquals(List.of("dao", "handler", "root"), List.of(spans.get(0).name, spans.get(1).name, spans.get(2).name));
+    assertEquals(spans.get(1).id, spans.get(0).parentId());
+    assertEquals(root.id, spans.get(1).parentId());
+    assertNull(root.parentId());
+  }
+
+
+  /**
+   * Only 32 lowercase hex characters, not all zeros, are trace ids.
+   */
+  @Test
+  void traceId() {
+    assertTrue(Tracer.isTraceId(TraceId));
+    assertFalse(Tracer.isTraceId(null));
+    assertFalse(Tracer.isTraceId("0af7651916cd43dd"));
+    assertFalse(Tracer.isTraceId(TraceId.toUpperCase()));
+    assertFalse(Tracer.isTraceId("00000000000000000000000000000000"));
+  }
+
+
+  /**
+   * Traces are written as OTLP json.
+   */
+  @Test
+  void otlp() throws IOException {
+    var traces = new ArrayList<List<Span>>();
+    var tracer = new Tracer(traces::add, 1);
+
+    var root = tracer.startTrace("GET /api/questions", null);
+    root.attribute("http.status_code", 200);
+    tracer.start("json.render").close();
+    root.close();
+
+    var out = new StringWriter();
+    FileSpanExporter.write(out, traces.get(0));
+
+    var spans = JsonParser.parseString(out.toString())
+      .getAsJsonObject()
+      .getAsJsonArray("resourceSpans").get(0).getAsJsonObject()
+      .getAsJsonArray("scopeSpans").get(0).getAsJsonObject()
+      .getAsJsonArray("spans");
+
+    assertEquals(2, spans.size());
+
+    var child = spans.get(0).getAsJsonObject();
+    var parent = spans.get(1).getAsJsonObject();
+    assertEquals(root.traceId(), parent.get("traceId").getAsString());
+    assertEquals(32, parent.get("traceId").getAsString().length());
+    assertEquals(16, parent.get("spanId").getAsString().length());
+    assertEquals(parent.get("spanId"), child.get("parentSpanId"));
+    assertFalse(parent.has("parentSpanId"));
+    assertTrue(
+      Long.parseLong(parent.get("endTimeUnixNano").getAsString())
+        >= Long.parseLong(child.get("endTimeUnixNano").getAsString())
+    );
+
+    var status = parent.getAsJsonArray("attributes").get(0).getAsJsonObject();
+    assertEquals("http.status_code", status.get("key").getAsString());
+    assertEquals("200", status.getAsJsonObject("value").get("intValue").getAsString());
+  }
+}